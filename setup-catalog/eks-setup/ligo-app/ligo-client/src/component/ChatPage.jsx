@@ -31,12 +31,16 @@ function ChatPage({ username }) {
   
   // Use environment variable for backend URL, fallback to localhost for local development
   const BACKEND_URL = import.meta.env.VITE_BACKEND_URL || "http://localhost:8080";
+  // Chat room from the URL (?room=...), the shared "default" room otherwise
+  const roomId = new URLSearchParams(window.location.search).get("room") || "default";
 
   // Load recent messages when component mounts
   useEffect(() => {
     const loadRecentMessages = async () => {
       try {
-        const response = await fetch(`${BACKEND_URL}/api/messages/recent`);
+        const response = await fetch(
+          `${BACKEND_URL}/api/messages/recent?roomId=${encodeURIComponent(roomId)}`
+        );
         if (response.ok) {
           const recentMessages = await response.json();
           setMessages(recentMessages);
@@ -54,13 +58,13 @@ function ChatPage({ username }) {
     const newClient = new Client({
       webSocketFactory: () => new SockJS(`${BACKEND_URL}/ws`),
       onConnect: () => {
-        const joinMessage = { sender: username, type: "CONNECT" };
+        const joinMessage = { sender: username, type: "CONNECT", roomId: roomId };
         newClient.publish({
           destination: "/app/chat.add-user",
           body: JSON.stringify(joinMessage),
         });
 
-        newClient.subscribe("/topic/public", (message) => {
+        newClient.subscribe(`/topic/room.${roomId}`, (message) => {
           const newMessage = JSON.parse(message.body);
           setMessages((prevMessages) => [...prevMessages, newMessage]);
         });
@@ -70,9 +74,14 @@ function ChatPage({ username }) {
           setGrammarCheckedText(newMessage.content);
         });
 
+        // streamed answer: LIGOBOT_CHUNK pieces, then the full text in LIGOBOT_RESULT
         newClient.subscribe("/user/queue/private/askligobot", (message) => {
           const newMessage = JSON.parse(message.body);
-          setAskLigoBotApi(newMessage.content);
+          if (newMessage.type === "LIGOBOT_CHUNK") {
+            setAskLigoBotApi((prevAnswer) => prevAnswer + newMessage.content);
+          } else {
+            setAskLigoBotApi(newMessage.content);
+          }
         });
 
         setConnectionStatus("Connected");
@@ -107,6 +116,7 @@ function ChatPage({ username }) {
         content: messageInputRef.current.value,
         type: "CHAT",
         translationMode: translationMode,
+        roomId: roomId,
       };
       client.publish({
         destination: "/app/chat.send-message",
@@ -143,6 +153,7 @@ function ChatPage({ username }) {
         destination: "/app/chat.ask-ligobot",
         body: JSON.stringify(askLigoBotMessage),
       });
+      setAskLigoBotApi("");
       setIsAskLigoBotVisible(true);
     }
   };
@@ -0,0 +1,68 @@
+package com.cns.ligo.message.kafka;
+
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.MessageType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Per-message cost of the two wire formats, through the same serializer / deserializer the
+// producers and consumers use. Encoded sizes are printed at setup.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageCodecBenchmark {
+
+  private Message message;
+  private byte[] json;
+  private byte[] binary;
+  private MessageSerializer jsonSerializer;
+  private MessageSerializer binarySerializer;
+  private MessageDeserializer deserializer;
+
+  @Setup
+  public void setUp() {
+    ObjectMapper objectMapper = new ObjectMapper().registerModule(new BlackbirdModule());
+    message = Message.builder()
+        .sender("alice")
+        .content("Xin chào, 오늘 회의는 3시에 시작합니다. See you there!")
+        .type(MessageType.CHAT)
+        .translationMode("en")
+        .sessionId("3f2a9c1e-5d7b-4c8e-9a1f-2b6d8e0c4a7f")
+        .roomId("default")
+        .build();
+    jsonSerializer = new MessageSerializer(objectMapper, MessageSerializer.WireFormat.JSON);
+    binarySerializer = new MessageSerializer(objectMapper, MessageSerializer.WireFormat.BINARY);
+    deserializer = new MessageDeserializer(objectMapper);
+    json = jsonSerializer.serialize("messaging", message);
+    binary = binarySerializer.serialize("messaging", message);
+    System.out.printf("%nmessage size: json=%d bytes, binary=%d bytes%n", json.length, binary.length);
+  }
+
+  @Benchmark
+  public byte[] serializeJson() {
+    return jsonSerializer.serialize("messaging", message);
+  }
+
+  @Benchmark
+  public byte[] serializeBinary() {
+    return binarySerializer.serialize("messaging", message);
+  }
+
+  @Benchmark
+  public Message deserializeJson() {
+    return deserializer.deserialize("messaging", json);
+  }
+
+  @Benchmark
+  public Message deserializeBinary() {
+    return deserializer.deserialize("messaging", binary);
+  }
+}
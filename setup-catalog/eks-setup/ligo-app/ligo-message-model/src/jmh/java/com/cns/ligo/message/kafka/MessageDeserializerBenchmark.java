@@ -0,0 +1,71 @@
+package com.cns.ligo.message.kafka;
+
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.MessageType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Per-record cost of turning a Kafka record value into a Message.
+// perRecordMapper is the old listener path: the value arrives double encoded, JsonDeserializer
+// yields the inner JSON string and the listener parses it with a fresh ObjectMapper.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessageDeserializerBenchmark {
+
+  private final ObjectMapper sharedMapper = new ObjectMapper();
+
+  private byte[] json;
+  private byte[] doubleEncodedJson;
+  private MessageDeserializer sharedDeserializer;
+  private MessageDeserializer blackbirdDeserializer;
+
+  @Setup
+  public void setUp() throws Exception {
+    Message message = Message.builder()
+        .sender("alice")
+        .content("Xin chào, 오늘 회의는 3시에 시작합니다. See you there!")
+        .type(MessageType.CHAT)
+        .translationMode("en")
+        .sessionId("3f2a9c1e-5d7b-4c8e-9a1f-2b6d8e0c4a7f")
+        .roomId("default")
+        .build();
+    String value = sharedMapper.writeValueAsString(message);
+    json = value.getBytes(StandardCharsets.UTF_8);
+    doubleEncodedJson = sharedMapper.writeValueAsBytes(value);
+
+    sharedDeserializer = new MessageDeserializer(new ObjectMapper());
+    blackbirdDeserializer = new MessageDeserializer(new ObjectMapper().registerModule(new BlackbirdModule()));
+  }
+
+  @Benchmark
+  public Message perRecordMapper() throws Exception {
+    String value = sharedMapper.readValue(doubleEncodedJson, String.class);
+    ObjectMapper objectMapper = new ObjectMapper();
+    return objectMapper.readValue(value, Message.class);
+  }
+
+  @Benchmark
+  public Message sharedDoubleEncoded() {
+    return sharedDeserializer.deserialize("messaging", doubleEncodedJson);
+  }
+
+  @Benchmark
+  public Message shared() {
+    return sharedDeserializer.deserialize("messaging", json);
+  }
+
+  @Benchmark
+  public Message sharedBlackbird() {
+    return blackbirdDeserializer.deserialize("messaging", json);
+  }
+}
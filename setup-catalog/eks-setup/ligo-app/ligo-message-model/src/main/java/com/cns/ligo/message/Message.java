@@ -1,4 +1,4 @@
-package com.cns.ligo.domain.message.model;
+package com.cns.ligo.message;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -17,7 +17,11 @@ public class Message {
   private String content;
   private String sender;
   private String sessionId;
+  private String roomId;
 
   private String translationMode;
 
+  // assigned by the chat service when a user sends the message, stored with it in chat_messages
+  private String id;
+
 }
@@ -0,0 +1,21 @@
+package com.cns.ligo.message;
+
+// Kafka record keys. Records with the same key stay on one partition, in order:
+// by room for room traffic, by session for replies that only go to one user.
+public final class MessageKeys {
+
+  public static final String DEFAULT_ROOM = "default";
+
+  private MessageKeys() {
+  }
+
+  // messages without a room (older clients) belong to the default room
+  public static String room(Message message) {
+    String roomId = message.getRoomId();
+    return roomId == null || roomId.isBlank() ? DEFAULT_ROOM : roomId;
+  }
+
+  public static String session(Message message) {
+    return message.getSessionId();
+  }
+}
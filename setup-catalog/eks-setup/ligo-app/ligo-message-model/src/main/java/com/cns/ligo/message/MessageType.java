@@ -0,0 +1,11 @@
+package com.cns.ligo.message;
+
+public enum MessageType {
+  CHAT,
+  CONNECT,
+  DISCONNECT,
+  GRAMMAR_RESULT,
+  LIGOBOT_RESULT,
+  // partial ask-ligobot answer while it is streamed; LIGOBOT_RESULT carries the full answer
+  LIGOBOT_CHUNK,
+}
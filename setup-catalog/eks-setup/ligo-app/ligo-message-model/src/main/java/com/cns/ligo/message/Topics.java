@@ -0,0 +1,32 @@
+package com.cns.ligo.message;
+
+// Kafka topics between the chat and trans services.
+// Values are compile-time constants so they can be used in @KafkaListener(topics = ...).
+public final class Topics {
+
+  // chat -> chat: every chat message, persisted and fanned out to the room
+  public static final String MESSAGING = "messaging";
+
+  // chat -> trans requests
+  public static final String TRANSLATE_REQUEST = "translate-request";
+  public static final String CHECK_GRAMMAR = "check-grammar";
+  public static final String ASK_LIGOBOT = "ask-ligobot";
+
+  // trans -> chat replies
+  public static final String AI_RESPONSE = "ai-response";
+  public static final String CHECK_GRAMMAR_RESPONSE = "check-grammar-response";
+  public static final String ASK_LIGOBOT_RESPONSE = "ask-ligobot-response";
+
+  // retry and dead-letter topics of the trans requests:
+  // translate-request-retry-0, translate-request-retry-1, ..., translate-request-dlt
+  // chat messages that could not be persisted go to messaging-dlt
+  public static final String RETRY_SUFFIX = "-retry";
+  public static final String DEAD_LETTER_SUFFIX = "-dlt";
+
+  public static String deadLetterOf(String topic) {
+    return topic + DEAD_LETTER_SUFFIX;
+  }
+
+  private Topics() {
+  }
+}
@@ -0,0 +1,28 @@
+package com.cns.ligo.message.kafka;
+
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.MessageKeys;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+// Registered as a bean by each service's KafkaProducerConfig.
+public class JsonMessageSenderBroker {
+
+  private final KafkaTemplate<String, Message> kafkaTemplate;
+
+  public JsonMessageSenderBroker(KafkaTemplate<String, Message> kafkaTemplate) {
+    this.kafkaTemplate = kafkaTemplate;
+  }
+
+  // Serialized by the template's MessageSerializer (JSON or binary, see KafkaProducerConfig).
+  // Keys come from MessageKeys: room traffic by room, replies that only go to one user by session.
+  public CompletableFuture<SendResult<String, Message>> sendToRoom(String topic, Message message) {
+    return kafkaTemplate.send(topic, MessageKeys.room(message), message);
+  }
+
+  public CompletableFuture<SendResult<String, Message>> sendToSession(String topic, Message message) {
+    return kafkaTemplate.send(topic, MessageKeys.session(message), message);
+  }
+
+}
@@ -0,0 +1,177 @@
+package com.cns.ligo.message.kafka;
+
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.MessageType;
+import java.nio.charset.StandardCharsets;
+import org.apache.kafka.common.errors.SerializationException;
+
+// Compact binary encoding of Message, written and read by both the chat and trans services.
+//
+//   byte   MAGIC (0x00, never the first byte of a JSON value, so both formats can share a topic)
+//   byte   VERSION
+//   byte   type code (TYPE_CODES index + 1, 0 = no type)
+//   5 x    string: varint (UTF-8 length + 1, 0 = null) followed by the bytes,
+//          in order content, sender, sessionId, roomId, translationMode
+//   string id, optional: appended later, readers that don't know it stop before it
+//
+// Type codes are positions in TYPE_CODES, not enum ordinals: new types go at the end of the table.
+public final class MessageCodec {
+
+  public static final byte MAGIC = 0x00;
+  public static final byte VERSION = 1;
+
+  private static final MessageType[] TYPE_CODES = {
+      MessageType.CHAT,
+      MessageType.CONNECT,
+      MessageType.DISCONNECT,
+      MessageType.GRAMMAR_RESULT,
+      MessageType.LIGOBOT_RESULT,
+      MessageType.LIGOBOT_CHUNK,
+  };
+  private static final int HEADER_SIZE = 3;
+
+  private MessageCodec() {
+  }
+
+  public static boolean isBinary(byte[] data) {
+    return data.length > 0 && data[0] == MAGIC;
+  }
+
+  public static byte[] encode(Message message) {
+    byte[][] fields = {
+        utf8(message.getContent()),
+        utf8(message.getSender()),
+        utf8(message.getSessionId()),
+        utf8(message.getRoomId()),
+        utf8(message.getTranslationMode()),
+        utf8(message.getId()),
+    };
+    int size = HEADER_SIZE;
+    for (byte[] field : fields) {
+      size += varintSize(field != null ? field.length + 1 : 0) + (field != null ? field.length : 0);
+    }
+
+    byte[] out = new byte[size];
+    out[0] = MAGIC;
+    out[1] = VERSION;
+    out[2] = (byte) typeCode(message.getType());
+    int position = HEADER_SIZE;
+    for (byte[] field : fields) {
+      if (field == null) {
+        out[position++] = 0;
+        continue;
+      }
+      position = writeVarint(out, position, field.length + 1);
+      System.arraycopy(field, 0, out, position, field.length);
+      position += field.length;
+    }
+    return out;
+  }
+
+  public static Message decode(byte[] data) {
+    if (data.length < HEADER_SIZE || data[0] != MAGIC) {
+      throw new SerializationException("Not a binary message");
+    }
+    if (data[1] != VERSION) {
+      throw new SerializationException("Unsupported binary message version " + data[1]);
+    }
+    try {
+      Reader reader = new Reader(data, HEADER_SIZE);
+      return Message.builder()
+          .type(typeOf(data[2] & 0xFF))
+          .content(reader.readString())
+          .sender(reader.readString())
+          .sessionId(reader.readString())
+          .roomId(reader.readString())
+          .translationMode(reader.readString())
+          .id(reader.hasRemaining() ? reader.readString() : null)
+          .build();
+    } catch (IndexOutOfBoundsException e) {
+      throw new SerializationException("Truncated binary message", e);
+    }
+  }
+
+  private static int typeCode(MessageType type) {
+    if (type == null) {
+      return 0;
+    }
+    for (int i = 0; i < TYPE_CODES.length; i++) {
+      if (TYPE_CODES[i] == type) {
+        return i + 1;
+      }
+    }
+    throw new SerializationException("No binary type code for " + type);
+  }
+
+  private static MessageType typeOf(int code) {
+    if (code == 0) {
+      return null;
+    }
+    if (code > TYPE_CODES.length) {
+      throw new SerializationException("Unknown message type code " + code);
+    }
+    return TYPE_CODES[code - 1];
+  }
+
+  private static byte[] utf8(String value) {
+    return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+  }
+
+  private static int varintSize(int value) {
+    int size = 1;
+    while ((value >>>= 7) != 0) {
+      size++;
+    }
+    return size;
+  }
+
+  private static int writeVarint(byte[] out, int position, int value) {
+    while ((value & ~0x7F) != 0) {
+      out[position++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out[position++] = (byte) value;
+    return position;
+  }
+
+  private static final class Reader {
+
+    private final byte[] data;
+    private int position;
+
+    Reader(byte[] data, int position) {
+      this.data = data;
+      this.position = position;
+    }
+
+    boolean hasRemaining() {
+      return position < data.length;
+    }
+
+    String readString() {
+      int length = readVarint();
+      if (length == 0) {
+        return null;
+      }
+      length--;
+      if (length > data.length - position) {
+        throw new IndexOutOfBoundsException("String of " + length + " bytes at " + position);
+      }
+      String value = new String(data, position, length, StandardCharsets.UTF_8);
+      position += length;
+      return value;
+    }
+
+    private int readVarint() {
+      int value = 0;
+      for (int shift = 0; shift < 32; shift += 7) {
+        byte b = data[position++];
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new SerializationException("Malformed varint");
+    }
+  }
+}
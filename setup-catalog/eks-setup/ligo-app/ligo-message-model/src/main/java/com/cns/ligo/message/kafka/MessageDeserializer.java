@@ -0,0 +1,52 @@
+package com.cns.ligo.message.kafka;
+
+import com.cns.ligo.message.Message;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.IOException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+// Kafka value deserializer for Message, backed by the application ObjectMapper.
+// Parses the record bytes directly (no intermediate String) with readers built once.
+// The target type is always Message, so type headers are never read and no packages have to be trusted.
+// Records written by older producers carry the message JSON as a JSON string (double encoded);
+// those are unwrapped first. Records starting with MessageCodec.MAGIC are in the binary format.
+public class MessageDeserializer implements Deserializer<Message> {
+
+  private final ObjectReader messageReader;
+  private final ObjectReader stringReader;
+
+  public MessageDeserializer(ObjectMapper objectMapper) {
+    this.messageReader = objectMapper.readerFor(Message.class);
+    this.stringReader = objectMapper.readerFor(String.class);
+  }
+
+  @Override
+  public Message deserialize(String topic, byte[] data) {
+    if (data == null || data.length == 0) {
+      return null;
+    }
+    if (MessageCodec.isBinary(data)) {
+      return MessageCodec.decode(data);
+    }
+    try {
+      if (isJsonString(data)) {
+        String json = stringReader.readValue(data);
+        return messageReader.readValue(json);
+      }
+      return messageReader.readValue(data);
+    } catch (IOException e) {
+      throw new SerializationException("Can't deserialize message from topic " + topic, e);
+    }
+  }
+
+  private static boolean isJsonString(byte[] data) {
+    for (byte b : data) {
+      if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+        return b == '"';
+      }
+    }
+    return false;
+  }
+}
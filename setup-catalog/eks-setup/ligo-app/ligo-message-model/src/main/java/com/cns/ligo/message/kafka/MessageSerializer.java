@@ -0,0 +1,47 @@
+package com.cns.ligo.message.kafka;
+
+import com.cns.ligo.message.Message;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.util.Locale;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+// Kafka value serializer for Message: plain JSON (no type headers) or the MessageCodec binary format.
+// MessageDeserializer reads both, so the format can be switched once every consumer runs a
+// version that understands binary.
+public class MessageSerializer implements Serializer<Message> {
+
+  public enum WireFormat {
+    JSON,
+    BINARY;
+
+    public static WireFormat of(String name) {
+      return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+  }
+
+  private final ObjectWriter messageWriter;
+  private final WireFormat wireFormat;
+
+  public MessageSerializer(ObjectMapper objectMapper, WireFormat wireFormat) {
+    this.messageWriter = objectMapper.writerFor(Message.class);
+    this.wireFormat = wireFormat;
+  }
+
+  @Override
+  public byte[] serialize(String topic, Message message) {
+    if (message == null) {
+      return null;
+    }
+    if (wireFormat == WireFormat.BINARY) {
+      return MessageCodec.encode(message);
+    }
+    try {
+      return messageWriter.writeValueAsBytes(message);
+    } catch (JsonProcessingException e) {
+      throw new SerializationException("Can't serialize message for topic " + topic, e);
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package com.cns.ligo.message.kafka;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+// Producer tuning presets of both services, selected with spring.chat.kafka.producer.profile
+// and spring.trans.kafka.producer.profile.
+// - default: client defaults, every send goes out almost on its own (linger 0, no compression)
+// - balanced: waits up to 5 ms to fill 64 KB lz4 batches, small added latency for chat lines
+// - throughput: 20 ms / 256 KB zstd batches, for bulk traffic where latency matters less
+// All but default are idempotent with acks=all, so retries can't duplicate or reorder records
+// (up to 5 in-flight requests per connection keep ordering with idempotence).
+public enum ProducerProfile {
+  DEFAULT(Map.of()),
+  BALANCED(Map.of(
+      ProducerConfig.LINGER_MS_CONFIG, 5,
+      ProducerConfig.BATCH_SIZE_CONFIG, 64 * 1024,
+      ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4",
+      ProducerConfig.ACKS_CONFIG, "all",
+      ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+      ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5,
+      ProducerConfig.BUFFER_MEMORY_CONFIG, 32L * 1024 * 1024)),
+  THROUGHPUT(Map.of(
+      ProducerConfig.LINGER_MS_CONFIG, 20,
+      ProducerConfig.BATCH_SIZE_CONFIG, 256 * 1024,
+      ProducerConfig.COMPRESSION_TYPE_CONFIG, "zstd",
+      ProducerConfig.ACKS_CONFIG, "all",
+      ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+      ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5,
+      ProducerConfig.BUFFER_MEMORY_CONFIG, 64L * 1024 * 1024));
+
+  private final Map<String, Object> properties;
+
+  ProducerProfile(Map<String, Object> properties) {
+    this.properties = properties;
+  }
+
+  public Map<String, Object> getProperties() {
+    return properties;
+  }
+
+  public static ProducerProfile of(String name) {
+    try {
+      return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown Kafka producer profile '" + name + "', expected one of "
+          + Arrays.toString(values()).toLowerCase(Locale.ROOT), e);
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.cns.ligo.message.kafka;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.Topics;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+
+class JsonMessageSenderBrokerTest {
+
+  @SuppressWarnings("unchecked")
+  private final KafkaTemplate<String, Message> kafkaTemplate = mock(KafkaTemplate.class);
+  private final JsonMessageSenderBroker broker = new JsonMessageSenderBroker(kafkaTemplate);
+
+  @Test
+  void roomTrafficIsKeyedByRoom() {
+    Message message = Message.builder().roomId("team-a").sessionId("s1").build();
+
+    broker.sendToRoom(Topics.AI_RESPONSE, message);
+
+    verify(kafkaTemplate).send(Topics.AI_RESPONSE, "team-a", message);
+  }
+
+  @Test
+  void messagesWithoutRoomUseTheDefaultRoom() {
+    Message message = Message.builder().sessionId("s1").build();
+
+    broker.sendToRoom(Topics.AI_RESPONSE, message);
+
+    verify(kafkaTemplate).send(Topics.AI_RESPONSE, "default", message);
+  }
+
+  @Test
+  void privateRepliesAreKeyedBySession() {
+    Message message = Message.builder().roomId("team-a").sessionId("s1").build();
+
+    broker.sendToSession(Topics.CHECK_GRAMMAR_RESPONSE, message);
+
+    verify(kafkaTemplate).send(Topics.CHECK_GRAMMAR_RESPONSE, "s1", message);
+  }
+}
@@ -0,0 +1,87 @@
+package com.cns.ligo.message.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.MessageType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Arrays;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+class MessageCodecTest {
+
+  @Test
+  void roundTripsAllFields() {
+    Message original = Message.builder()
+        .type(MessageType.LIGOBOT_CHUNK)
+        .content("Xin chào, 오늘 회의는 3시에 시작합니다 🎉")
+        .sender("alice")
+        .sessionId("3f2a9c1e-5d7b-4c8e-9a1f-2b6d8e0c4a7f")
+        .roomId("team-a")
+        .translationMode("ko")
+        .id("0b8e5f0e-3c1a-4d2b-9f6e-7a5c3d1e2f40")
+        .build();
+
+    Message message = MessageCodec.decode(MessageCodec.encode(original));
+
+    assertThat(message).usingRecursiveComparison().isEqualTo(original);
+  }
+
+  @Test
+  void readsMessagesWrittenWithoutId() {
+    Message original = Message.builder().type(MessageType.CHAT).content("hello").sender("alice").build();
+    byte[] data = MessageCodec.encode(original);
+
+    // the id field is the last byte (0 = null); records from before it was added end right before it
+    Message message = MessageCodec.decode(Arrays.copyOf(data, data.length - 1));
+
+    assertThat(message).usingRecursiveComparison().isEqualTo(original);
+  }
+
+  @Test
+  void keepsNullAndEmptyApart() {
+    Message original = Message.builder().content("").build();
+
+    Message message = MessageCodec.decode(MessageCodec.encode(original));
+
+    assertThat(message.getType()).isNull();
+    assertThat(message.getContent()).isEmpty();
+    assertThat(message.getSender()).isNull();
+    assertThat(message.getRoomId()).isNull();
+  }
+
+  @Test
+  void encodesLongContent() {
+    Message original = Message.builder().type(MessageType.CHAT).content("a".repeat(100_000)).build();
+
+    assertThat(MessageCodec.decode(MessageCodec.encode(original)).getContent()).hasSize(100_000);
+  }
+
+  @Test
+  void isSmallerThanJson() throws Exception {
+    Message message = Message.builder()
+        .type(MessageType.CHAT)
+        .content("See you at 3pm")
+        .sender("alice")
+        .sessionId("3f2a9c1e-5d7b-4c8e-9a1f-2b6d8e0c4a7f")
+        .roomId("default")
+        .translationMode("none")
+        .build();
+
+    assertThat(MessageCodec.encode(message).length)
+        .isLessThan(new ObjectMapper().writeValueAsBytes(message).length / 2);
+  }
+
+  @Test
+  void rejectsUnknownVersionsAndTruncatedData() {
+    byte[] data = MessageCodec.encode(Message.builder().type(MessageType.CHAT).content("hello").build());
+
+    byte[] future = data.clone();
+    future[1] = MessageCodec.VERSION + 1;
+    assertThatThrownBy(() -> MessageCodec.decode(future)).isInstanceOf(SerializationException.class);
+    assertThatThrownBy(() -> MessageCodec.decode(Arrays.copyOf(data, data.length - 2)))
+        .isInstanceOf(SerializationException.class);
+  }
+}
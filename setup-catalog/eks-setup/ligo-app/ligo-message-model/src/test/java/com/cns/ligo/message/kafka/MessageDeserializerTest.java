@@ -0,0 +1,69 @@
+package com.cns.ligo.message.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.MessageType;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+class MessageDeserializerTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper()
+      .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+  private final MessageDeserializer deserializer = new MessageDeserializer(objectMapper);
+
+  @Test
+  void readsPlainJson() {
+    byte[] data = "{\"type\":\"CHAT\",\"sender\":\"alice\",\"content\":\"hi\",\"roomId\":\"r1\",\"extra\":1}"
+        .getBytes(StandardCharsets.UTF_8);
+
+    Message message = deserializer.deserialize("messaging", data);
+
+    assertThat(message.getType()).isEqualTo(MessageType.CHAT);
+    assertThat(message.getSender()).isEqualTo("alice");
+    assertThat(message.getContent()).isEqualTo("hi");
+    assertThat(message.getRoomId()).isEqualTo("r1");
+  }
+
+  @Test
+  void unwrapsDoubleEncodedJson() throws Exception {
+    Message original = Message.builder().sender("bob").content("xin chào").sessionId("s1").build();
+    byte[] data = objectMapper.writeValueAsBytes(objectMapper.writeValueAsString(original));
+
+    Message message = deserializer.deserialize("ai-response", data);
+
+    assertThat(message.getSender()).isEqualTo("bob");
+    assertThat(message.getContent()).isEqualTo("xin chào");
+    assertThat(message.getSessionId()).isEqualTo("s1");
+  }
+
+  @Test
+  void readsBinaryMessages() {
+    Message original = Message.builder().type(MessageType.CHAT).sender("carol").content("안녕").roomId("r2").build();
+
+    Message message = deserializer.deserialize("messaging", MessageCodec.encode(original));
+
+    assertThat(message.getSender()).isEqualTo("carol");
+    assertThat(message.getContent()).isEqualTo("안녕");
+    assertThat(message.getRoomId()).isEqualTo("r2");
+  }
+
+  @Test
+  void returnsNullForEmptyValue() {
+    assertThat(deserializer.deserialize("messaging", null)).isNull();
+    assertThat(deserializer.deserialize("messaging", new byte[0])).isNull();
+  }
+
+  @Test
+  void failsOnMalformedValue() {
+    byte[] data = "not json".getBytes(StandardCharsets.UTF_8);
+
+    assertThatThrownBy(() -> deserializer.deserialize("messaging", data))
+        .isInstanceOf(SerializationException.class);
+  }
+}
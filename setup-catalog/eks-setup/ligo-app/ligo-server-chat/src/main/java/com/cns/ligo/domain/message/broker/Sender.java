@@ -1,6 +1,7 @@
 package com.cns.ligo.domain.message.broker;
 
-import com.cns.ligo.domain.message.model.Message;
+import com.cns.ligo.domain.message.model.ChatRooms;
+import com.cns.ligo.message.Message;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
@@ -13,7 +14,8 @@ public class Sender {
     this.kafkaTemplate = kafkaTemplate;
   }
 
+  // keyed by room: all messages of a room land on one partition and are consumed in order
   public void send(String topic, Message message) {
-    kafkaTemplate.send(topic, message);
+    kafkaTemplate.send(topic, ChatRooms.roomOf(message), message);
   }
 }
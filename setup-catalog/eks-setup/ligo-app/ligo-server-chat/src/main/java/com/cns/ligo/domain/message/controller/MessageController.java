@@ -1,16 +1,24 @@
 package com.cns.ligo.domain.message.controller;
 
-import com.cns.ligo.domain.message.model.Message;
-import com.cns.ligo.domain.message.model.MessageType;
-import com.cns.ligo.domain.message.model.MessageEntity;
-import com.cns.ligo.domain.message.broker.JsonMessageSenderBroker;
 import com.cns.ligo.domain.message.broker.Sender;
+import com.cns.ligo.domain.message.model.ChatRooms;
+import com.cns.ligo.domain.message.model.MessageCursor;
+import com.cns.ligo.domain.message.model.MessageEntity;
+import com.cns.ligo.domain.message.model.MessageHistoryPage;
 import com.cns.ligo.domain.message.service.MessageService;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.cns.ligo.domain.message.service.MessageWriteBuffer;
+import com.cns.ligo.domain.message.service.RecentMessageCache;
+import com.cns.ligo.global.kafka.ChatCluster;
+import com.cns.ligo.global.websocket.ShardedSubscriptionRegistry;
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.MessageType;
+import com.cns.ligo.message.Topics;
+import com.cns.ligo.message.kafka.JsonMessageSenderBroker;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
@@ -20,11 +28,15 @@ import org.springframework.messaging.simp.SimpMessageSendingOperations;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.http.ResponseEntity;
+import java.time.format.DateTimeParseException;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.UUID;
 
 @Controller
 @RestController
@@ -34,43 +46,59 @@ public class MessageController {
   private final SimpMessageSendingOperations messagingTemplate;
   private final JsonMessageSenderBroker jsonMessageSenderBroker;
   private final MessageService messageService;
+  private final MessageWriteBuffer messageWriteBuffer;
+  private final RecentMessageCache recentMessageCache;
+  private final ChatCluster chatCluster;
+  private final ShardedSubscriptionRegistry subscriptionRegistry;
 
   private static final Logger logger = LoggerFactory.getLogger(MessageController.class);
+  private static final int MAX_HISTORY_PAGE_SIZE = 200;
 
   public MessageController(Sender sender, SimpMessageSendingOperations messagingTemplate,
-      JsonMessageSenderBroker jsonMessageSenderBroker, MessageService messageService) {
+      JsonMessageSenderBroker jsonMessageSenderBroker, MessageService messageService,
+      MessageWriteBuffer messageWriteBuffer, RecentMessageCache recentMessageCache,
+      ChatCluster chatCluster, ShardedSubscriptionRegistry subscriptionRegistry) {
     this.sender = sender;
     this.messagingTemplate = messagingTemplate;
     this.jsonMessageSenderBroker = jsonMessageSenderBroker;
     this.messageService = messageService;
+    this.messageWriteBuffer = messageWriteBuffer;
+    this.recentMessageCache = recentMessageCache;
+    this.chatCluster = chatCluster;
+    this.subscriptionRegistry = subscriptionRegistry;
   }
 
-  // noti to all user when someone connects
+  // noti to all users of the room when someone connects
   @MessageMapping("/chat.add-user")
-  @SendTo("/topic/public")
-  public Message addUser(
+  public void addUser(
       @Payload Message chatMessage,
       SimpMessageHeaderAccessor headerAccessor
   ) {
+    String roomId = ChatRooms.roomOf(chatMessage);
+    if (!ChatRooms.isValid(roomId)) {
+      logger.warn("Rejected join to invalid room: " + roomId);
+      return;
+    }
+    chatMessage.setRoomId(roomId);
     if (headerAccessor.getSessionAttributes() != null) {
       headerAccessor.getSessionAttributes().put("username", chatMessage.getSender());
+      headerAccessor.getSessionAttributes().put("roomId", roomId);
     }
-    return chatMessage;
+    messagingTemplate.convertAndSend(ChatRooms.destination(roomId), chatMessage);
   }
 
-  // REST endpoint to get recent messages
+  // REST endpoint to get recent messages (served from the in-memory recent cache)
   @GetMapping("/api/messages/recent")
-  public ResponseEntity<List<Message>> getRecentMessages() {
+  public ResponseEntity<List<Message>> getRecentMessages(
+      @RequestParam(defaultValue = ChatRooms.DEFAULT_ROOM) String roomId,
+      @RequestParam(defaultValue = "10") int limit
+  ) {
+    if (!ChatRooms.isValid(roomId)) {
+      return ResponseEntity.badRequest().build();
+    }
     try {
-      List<MessageEntity> entities = messageService.getRecentMessages(10);
-      List<Message> messages = entities.stream()
-          .map(entity -> Message.builder()
-              .sender(entity.getSender())
-              .content(entity.getContent())
-              .type(MessageType.valueOf(entity.getMessageType()))
-              .build())
-          .collect(Collectors.toList());
-      logger.info("Retrieved {} recent messages from database", messages.size());
+      List<Message> messages = recentMessageCache.getRecent(roomId, limit);
+      logger.debug("Retrieved {} recent messages", messages.size());
       return ResponseEntity.ok(messages);
     } catch (Exception e) {
       logger.error("Failed to retrieve recent messages", e);
@@ -78,16 +106,44 @@ public class MessageController {
     }
   }
 
+  // REST endpoint to page through a room's history, newest first (keyset pagination)
+  @GetMapping("/api/rooms/{roomId}/messages")
+  public ResponseEntity<MessageHistoryPage> getRoomHistory(
+      @PathVariable String roomId,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "50") int limit
+  ) {
+    if (!ChatRooms.isValid(roomId)) {
+      return ResponseEntity.badRequest().build();
+    }
+    MessageCursor before;
+    try {
+      before = cursor == null || cursor.isBlank() ? null : MessageCursor.decode(cursor);
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      logger.warn("Invalid history cursor: " + cursor);
+      return ResponseEntity.badRequest().build();
+    }
+    int pageSize = Math.clamp(limit, 1, MAX_HISTORY_PAGE_SIZE);
+    return ResponseEntity.ok(messageService.getRoomHistory(roomId, before, pageSize));
+  }
+
   // send message
   @MessageMapping("/chat.send-message")
-  public void sendMessage(@Payload Message chatMessage, SimpMessageHeaderAccessor headerAccessor)
-      throws JsonProcessingException {
+  public void sendMessage(@Payload Message chatMessage, SimpMessageHeaderAccessor headerAccessor) {
+    String roomId = ChatRooms.roomOf(chatMessage);
+    if (!ChatRooms.isValid(roomId)) {
+      logger.warn("Rejected message to invalid room: " + roomId);
+      return;
+    }
+    chatMessage.setRoomId(roomId);
     chatMessage.setSessionId(headerAccessor.getSessionId());
-    sender.send("messaging", chatMessage); // to kafka
+    // never the client's: the id identifies the message in the recent cache and in chat_messages
+    chatMessage.setId(UUID.randomUUID().toString());
+    sender.send(Topics.MESSAGING, chatMessage); // to kafka
     logger.info("Sending message: " + chatMessage);
 
     if (!chatMessage.getTranslationMode().equals("none")) {
-      jsonMessageSenderBroker.send("translate-request", chatMessage);
+      jsonMessageSenderBroker.sendToRoom(Topics.TRANSLATE_REQUEST, chatMessage);
     }
   }
 
@@ -95,9 +151,9 @@ public class MessageController {
   @MessageMapping("/chat.check-grammar")
   @SendTo("/topic/public")
   public void checkGrammar(@Payload Message chatMessage,
-      SimpMessageHeaderAccessor headerAccessor) throws JsonProcessingException {
+      SimpMessageHeaderAccessor headerAccessor) {
     chatMessage.setSessionId(headerAccessor.getSessionId());
-    jsonMessageSenderBroker.send("check-grammar", chatMessage);
+    jsonMessageSenderBroker.sendToSession(Topics.CHECK_GRAMMAR, chatMessage);
     logger.info("Sending check-grammer message: " + chatMessage);
   }
 
@@ -105,46 +161,90 @@ public class MessageController {
   @MessageMapping("/chat.ask-ligobot")
   @SendTo("/topic/public")
   public void askLigoBot(@Payload Message chatMessage,
-      SimpMessageHeaderAccessor headerAccessor) throws JsonProcessingException {
+      SimpMessageHeaderAccessor headerAccessor) {
     chatMessage.setSessionId(headerAccessor.getSessionId());
-    jsonMessageSenderBroker.send("ask-ligobot", chatMessage);
+    jsonMessageSenderBroker.sendToSession(Topics.ASK_LIGOBOT, chatMessage);
     logger.info("Sending ask-ligobot message: " + chatMessage);
   }
 
   // send chat message to all users
-  @KafkaListener(topics = "messaging", groupId = "chat")
+  // (in cluster mode this pod only persists; delivery happens in consumeForDelivery on every pod)
+  @KafkaListener(topics = Topics.MESSAGING, groupId = "chat",
+      autoStartup = "#{!${spring.chat.kafka.batch-listener:false}}")
   public void consume(Message chatMessage) {
     logger.info("Received message from Kafka: " + chatMessage);
-    
-    // Persist message to database
+
+    // Persist message to database (write-behind, does not block the broadcast)
+    messageWriteBuffer.enqueue(toEntity(chatMessage));
+
+    if (!chatCluster.isEnabled()) {
+      deliver(chatMessage);
+    }
+  }
+
+  // batch mode: persist the whole poll in one transaction, then broadcast in order.
+  // If the transaction fails the records are saved one by one and the first one that still fails is
+  // reported by index: the error handler commits the records before it and redelivers the rest, and
+  // dead-letters the record once its retries are used up (see KafkaConsumerConfig).
+  @KafkaListener(topics = Topics.MESSAGING, groupId = "chat",
+      containerFactory = "batchKafkaListenerContainerFactory",
+      autoStartup = "${spring.chat.kafka.batch-listener:false}")
+  public void consumeBatch(List<ConsumerRecord<String, Message>> records) {
+    List<Message> chatMessages = records.stream()
+        .map(ConsumerRecord::value)
+        .filter(Objects::nonNull)
+        .toList();
+    logger.info("Received batch of {} messages from Kafka", chatMessages.size());
+
     try {
-      messageService.saveMessage(
-          chatMessage.getSender(),
-          chatMessage.getContent(),
-          chatMessage.getType() != null ? chatMessage.getType().toString() : "CHAT",
-          "default"
-      );
-      logger.info("Message persisted to database");
-    } catch (Exception e) {
-      logger.error("Failed to persist message to database", e);
+      messageService.saveMessages(chatMessages.stream().map(this::toEntity).toList());
+    } catch (RuntimeException e) {
+      logger.error("Failed to persist batch of {} messages, saving them one by one", chatMessages.size(), e);
+      saveEach(records);
+      return;
     }
-    
-    messagingTemplate.convertAndSend("/topic/public", chatMessage);
+
+    if (!chatCluster.isEnabled()) {
+      chatMessages.forEach(this::deliver);
+    }
+  }
+
+  private void saveEach(List<ConsumerRecord<String, Message>> records) {
+    for (int i = 0; i < records.size(); i++) {
+      Message chatMessage = records.get(i).value();
+      if (chatMessage == null) {
+        continue;
+      }
+      try {
+        messageService.saveMessages(List.of(toEntity(chatMessage)));
+      } catch (RuntimeException e) {
+        throw new BatchListenerFailedException("Failed to persist message from " + chatMessage.getSender(), e, i);
+      }
+      if (!chatCluster.isEnabled()) {
+        deliver(chatMessage);
+      }
+    }
+  }
+
+  // cluster mode: every pod reads "messaging" with its own group and delivers to its local sessions.
+  // A new group starts from the latest offset, history is served by the REST endpoints; a restarted pod
+  // keeps its group (stable instance id) and catches up from its last commit before sessions reconnect.
+  @KafkaListener(topics = Topics.MESSAGING, groupId = "#{@chatCluster.deliveryGroupId}",
+      autoStartup = "#{@chatCluster.enabled}", properties = "auto.offset.reset=latest")
+  public void consumeForDelivery(Message chatMessage) {
+    deliver(chatMessage);
   }
 
   // send ai-response message to all user
-  @KafkaListener(topics = "ai-response", groupId = "chat")
-  public void consumeAiResponse(String jsonMessage) throws JsonProcessingException {
-    ObjectMapper objectMapper = new ObjectMapper();
-    Message message = objectMapper.readValue(jsonMessage, Message.class);
-    messagingTemplate.convertAndSend("/topic/public", message);
+  @KafkaListener(topics = Topics.AI_RESPONSE, groupId = "#{@chatCluster.deliveryGroupId}")
+  public void consumeAiResponse(Message message) {
+    broadcast(ChatRooms.destination(ChatRooms.roomOf(message)), message);
   }
 
   // send checked-grammar response to sender
-  @KafkaListener(topics = "check-grammar-response", groupId = "chat")
-  public void consumeCheckGrammarResponse(String jsonMessage) throws JsonProcessingException {
-    ObjectMapper objectMapper = new ObjectMapper();
-    Message message = objectMapper.readValue(jsonMessage, Message.class);
+  // (in cluster mode every pod reads every reply, only the one holding the session delivers it; see ChatCluster)
+  @KafkaListener(topics = Topics.CHECK_GRAMMAR_RESPONSE, groupId = "#{@chatCluster.deliveryGroupId}")
+  public void consumeCheckGrammarResponse(Message message) {
     logger.info("Received check-grammar message from Kafka-consumer: " + message.getSender());
     message.setType(MessageType.GRAMMAR_RESULT);
     messagingTemplate.convertAndSendToUser(message.getSessionId(), "/queue/private/checkgrammar", message,
@@ -152,16 +252,41 @@ public class MessageController {
   }
 
   // send ask-ligo-bot response to sender
-  @KafkaListener(topics = "ask-ligobot-response", groupId = "chat")
-  public void consumeAskLigoBotResponse(String jsonMessage) throws JsonProcessingException {
-    ObjectMapper objectMapper = new ObjectMapper();
-    Message message = objectMapper.readValue(jsonMessage, Message.class);
-    logger.info("Received ask-ligobot message from Kafka-consumer: " + message.getSender());
-    message.setType(MessageType.LIGOBOT_RESULT);
+  @KafkaListener(topics = Topics.ASK_LIGOBOT_RESPONSE, groupId = "#{@chatCluster.deliveryGroupId}")
+  public void consumeAskLigoBotResponse(Message message) {
+    // streamed answers arrive as LIGOBOT_CHUNKs followed by the full LIGOBOT_RESULT
+    if (message.getType() != MessageType.LIGOBOT_CHUNK) {
+      logger.info("Received ask-ligobot message from Kafka-consumer: " + message.getSender());
+      message.setType(MessageType.LIGOBOT_RESULT);
+    }
     messagingTemplate.convertAndSendToUser(message.getSessionId(), "/queue/private/askligobot", message,
         createHeaders(message.getSessionId()));
   }
 
+  private void deliver(Message chatMessage) {
+    String roomId = ChatRooms.roomOf(chatMessage);
+    recentMessageCache.add(roomId, chatMessage);
+    broadcast(ChatRooms.destination(roomId), chatMessage);
+  }
+
+  // skip conversion and fan-out when no session on this pod subscribes to the room
+  // (the broker registry keeps the local subscriber count per destination)
+  private void broadcast(String destination, Message message) {
+    if (subscriptionRegistry.hasSubscribers(destination)) {
+      messagingTemplate.convertAndSend(destination, message);
+    }
+  }
+
+  private MessageEntity toEntity(Message chatMessage) {
+    return new MessageEntity(
+        chatMessage.getId(),
+        chatMessage.getSender(),
+        chatMessage.getContent(),
+        chatMessage.getType() != null ? chatMessage.getType().toString() : "CHAT",
+        ChatRooms.roomOf(chatMessage)
+    );
+  }
+
   private MessageHeaders createHeaders(String sessionId) {
     SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor
         .create(SimpMessageType.MESSAGE);
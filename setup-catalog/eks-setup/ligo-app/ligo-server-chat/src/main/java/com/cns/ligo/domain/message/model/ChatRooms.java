@@ -0,0 +1,31 @@
+package com.cns.ligo.domain.message.model;
+
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.MessageKeys;
+import java.util.regex.Pattern;
+
+// Room ids and their STOMP destinations (/topic/room.{id})
+public final class ChatRooms {
+
+  public static final String DEFAULT_ROOM = MessageKeys.DEFAULT_ROOM;
+
+  private static final String DESTINATION_PREFIX = "/topic/room.";
+  // letters, digits, '-' and '_' only, so a room id can never form a wildcard destination
+  private static final Pattern ROOM_ID = Pattern.compile("^[A-Za-z0-9_-]{1,64}$");
+
+  private ChatRooms() {
+  }
+
+  public static boolean isValid(String roomId) {
+    return roomId != null && ROOM_ID.matcher(roomId).matches();
+  }
+
+  // messages without a room (older clients) belong to the default room
+  public static String roomOf(Message message) {
+    return MessageKeys.room(message);
+  }
+
+  public static String destination(String roomId) {
+    return DESTINATION_PREFIX + roomId;
+  }
+}
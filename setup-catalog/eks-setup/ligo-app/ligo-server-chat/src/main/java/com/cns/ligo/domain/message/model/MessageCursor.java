@@ -0,0 +1,30 @@
+package com.cns.ligo.domain.message.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Keyset cursor on (created_at, id), sent to clients as an opaque url-safe string
+public record MessageCursor(LocalDateTime createdAt, long id) {
+
+  private static final String SEPARATOR = "|";
+
+  public static MessageCursor of(MessageView message) {
+    return new MessageCursor(message.getCreatedAt(), message.getId());
+  }
+
+  public static MessageCursor decode(String cursor) {
+    String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    int separator = raw.lastIndexOf(SEPARATOR);
+    if (separator < 0) {
+      throw new IllegalArgumentException("Malformed cursor: " + cursor);
+    }
+    return new MessageCursor(LocalDateTime.parse(raw.substring(0, separator)),
+        Long.parseLong(raw.substring(separator + 1)));
+  }
+
+  public String encode() {
+    String raw = createdAt + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+}
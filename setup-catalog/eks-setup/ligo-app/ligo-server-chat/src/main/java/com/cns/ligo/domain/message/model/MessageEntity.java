@@ -4,11 +4,15 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+    @Index(name = "idx_chat_messages_room_created_id", columnList = "room_id, created_at, id")
+})
 public class MessageEntity {
     
+    // Pooled sequence (see V2__message_id_sequence.sql) so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "chat_messages_seq")
+    @SequenceGenerator(name = "chat_messages_seq", sequenceName = "chat_messages_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -26,6 +30,10 @@ public class MessageEntity {
     @Column(name = "room_id")
     private String roomId;
     
+    // Message.id of the chat message this row was persisted from (null for rows from before V5)
+    @Column(name = "message_id", length = 36)
+    private String messageId;
+    
     // Constructor with fields
     public MessageEntity(String sender, String content, String messageType, String roomId) {
         this.sender = sender;
@@ -35,6 +43,11 @@ public class MessageEntity {
         this.createdAt = LocalDateTime.now();
     }
     
+    public MessageEntity(String messageId, String sender, String content, String messageType, String roomId) {
+        this(sender, content, messageType, roomId);
+        this.messageId = messageId;
+    }
+    
     // Default constructor for JPA
     public MessageEntity() {
         this.createdAt = LocalDateTime.now();
@@ -88,4 +101,12 @@ public class MessageEntity {
     public void setRoomId(String roomId) {
         this.roomId = roomId;
     }
+    
+    public String getMessageId() {
+        return messageId;
+    }
+    
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
 }
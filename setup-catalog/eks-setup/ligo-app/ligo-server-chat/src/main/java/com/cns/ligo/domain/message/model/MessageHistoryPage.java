@@ -0,0 +1,16 @@
+package com.cns.ligo.domain.message.model;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// One page of a room's history, newest first.
+// nextCursor points at the next (older) page and is null on the last page.
+@Getter
+@AllArgsConstructor
+public class MessageHistoryPage {
+
+  private List<MessageView> messages;
+  private String nextCursor;
+
+}
@@ -1,9 +0,0 @@
-package com.cns.ligo.domain.message.model;
-
-public enum MessageType {
-  CHAT,
-  CONNECT,
-  DISCONNECT,
-  GRAMMAR_RESULT,
-  LIGOBOT_RESULT,
-}
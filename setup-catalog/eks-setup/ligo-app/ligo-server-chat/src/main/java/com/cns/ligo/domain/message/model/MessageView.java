@@ -0,0 +1,19 @@
+package com.cns.ligo.domain.message.model;
+
+import java.time.LocalDateTime;
+
+// Read-only projection of chat_messages used by the history endpoints
+public interface MessageView {
+
+  Long getId();
+
+  String getMessageId();
+
+  String getSender();
+
+  String getContent();
+
+  String getMessageType();
+
+  LocalDateTime getCreatedAt();
+}
@@ -1,22 +1,30 @@
 package com.cns.ligo.domain.message.repository;
 
 import com.cns.ligo.domain.message.model.MessageEntity;
+import com.cns.ligo.domain.message.model.MessageView;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface MessageRepository extends JpaRepository<MessageEntity, Long> {
     
-    // Find all messages ordered by creation time
-    List<MessageEntity> findAllByOrderByCreatedAtAsc();
+    // Latest messages of a room, newest first (backed by idx_chat_messages_room_created_id)
+    @Query(value = "SELECT id, message_id AS \"messageId\", sender, content, message_type AS \"messageType\", "
+            + "created_at AS \"createdAt\" "
+            + "FROM chat_messages WHERE room_id = :roomId "
+            + "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<MessageView> findRoomHistory(String roomId, int limit);
     
-    // Find messages by room ID
-    List<MessageEntity> findByRoomIdOrderByCreatedAtAsc(String roomId);
-    
-    // Find recent messages with limit
-    @Query(value = "SELECT * FROM chat_messages ORDER BY created_at DESC LIMIT :limit", nativeQuery = true)
-    List<MessageEntity> findRecentMessages(int limit);
+    // Keyset page of a room: messages strictly older than the (createdAt, id) cursor, newest first.
+    // The plain created_at bound lets Postgres prune newer partitions (row comparisons are not used for pruning).
+    @Query(value = "SELECT id, message_id AS \"messageId\", sender, content, message_type AS \"messageType\", "
+            + "created_at AS \"createdAt\" "
+            + "FROM chat_messages WHERE room_id = :roomId AND created_at <= :createdAt "
+            + "AND (created_at, id) < (:createdAt, :id) "
+            + "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<MessageView> findRoomHistoryBefore(String roomId, LocalDateTime createdAt, long id, int limit);
 }
@@ -0,0 +1,157 @@
+package com.cns.ligo.domain.message.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Maintains the monthly partitions of chat_messages (see V4__partition_chat_messages.sql).
+// Creates partitions ahead of time and archives the ones older than the retention period.
+@Component
+public class MessagePartitionManager {
+
+  private static final Logger logger = LoggerFactory.getLogger(MessagePartitionManager.class);
+
+  private static final String TABLE = "chat_messages";
+  private static final String DEFAULT_PARTITION = "chat_messages_default";
+  private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+  private static final Pattern PARTITION_NAME = Pattern.compile("^chat_messages_(\\d{4})_(\\d{2})$");
+  // only one pod runs the maintenance at a time
+  private static final long ADVISORY_LOCK_KEY = 0x6c69676f_00000001L;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+  private final int premakeMonths;
+  private final int retentionMonths;
+  private final boolean dropArchived;
+
+  public MessagePartitionManager(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+      @Value("${spring.chat.partition.enabled:true}") boolean enabled,
+      @Value("${spring.chat.partition.premake-months:2}") int premakeMonths,
+      @Value("${spring.chat.partition.retention-months:12}") int retentionMonths,
+      @Value("${spring.chat.partition.archive-mode:detach}") String archiveMode) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.enabled = enabled;
+    this.premakeMonths = premakeMonths;
+    this.retentionMonths = retentionMonths;
+    this.dropArchived = "drop".equalsIgnoreCase(archiveMode);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onStartup() {
+    scheduledMaintenance();
+  }
+
+  @Scheduled(cron = "${spring.chat.partition.cron:0 0 3 * * *}")
+  public void scheduledMaintenance() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      maintain(YearMonth.now());
+    } catch (Exception e) {
+      logger.error("chat_messages partition maintenance failed", e);
+    }
+  }
+
+  public void maintain(YearMonth current) {
+    transactionTemplate.executeWithoutResult(status -> {
+      Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class,
+          ADVISORY_LOCK_KEY);
+      if (!Boolean.TRUE.equals(locked)) {
+        logger.info("Partition maintenance is running on another instance, skipping");
+        return;
+      }
+
+      for (int i = 0; i <= premakeMonths; i++) {
+        createPartition(current.plusMonths(i));
+      }
+      if (retentionMonths > 0) {
+        archivePartitionsBefore(current.minusMonths(retentionMonths));
+      }
+    });
+  }
+
+  // Postgres refuses to create a partition while the default partition holds rows of its range,
+  // so those rows are moved over: detach the default partition, create the new one, move the rows
+  // and attach the default partition again, all in one transaction.
+  public void createPartition(YearMonth month) {
+    String partition = partitionName(month);
+    LocalDate from = month.atDay(1);
+    LocalDate to = month.plusMonths(1).atDay(1);
+    String createSql = String.format("CREATE TABLE %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+        partition, TABLE, from, to);
+
+    transactionTemplate.executeWithoutResult(status -> {
+      Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition);
+      if (Boolean.TRUE.equals(exists)) {
+        return;
+      }
+      Boolean strayRows = jdbcTemplate.queryForObject(
+          "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE created_at >= ? AND created_at < ?)",
+          Boolean.class, from, to);
+      if (!Boolean.TRUE.equals(strayRows)) {
+        jdbcTemplate.execute(createSql);
+        return;
+      }
+
+      jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + DEFAULT_PARTITION);
+      jdbcTemplate.execute(createSql);
+      int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+          + " WHERE created_at >= ? AND created_at < ? RETURNING *) INSERT INTO " + partition
+          + " SELECT * FROM moved", from, to);
+      jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT");
+      logger.info("Created chat_messages partition {} and moved {} rows into it from {}", partition, moved,
+          DEFAULT_PARTITION);
+    });
+  }
+
+  public List<String> listPartitions() {
+    return jdbcTemplate.queryForList(
+        "SELECT child.relname FROM pg_inherits i "
+            + "JOIN pg_class child ON child.oid = i.inhrelid "
+            + "JOIN pg_class parent ON parent.oid = i.inhparent "
+            + "WHERE parent.relname = ? ORDER BY child.relname",
+        String.class, TABLE);
+  }
+
+  private void archivePartitionsBefore(YearMonth cutoff) {
+    for (String partition : listPartitions()) {
+      Matcher matcher = PARTITION_NAME.matcher(partition);
+      if (!matcher.matches()) {
+        continue; // default partition
+      }
+      YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+      if (!month.isBefore(cutoff)) {
+        continue;
+      }
+
+      jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+      if (dropArchived) {
+        jdbcTemplate.execute("DROP TABLE " + partition);
+        logger.info("Dropped chat_messages partition {}", partition);
+      } else {
+        String archived = TABLE + "_archive_" + month.format(SUFFIX_FORMAT);
+        jdbcTemplate.execute("ALTER TABLE " + partition + " RENAME TO " + archived);
+        logger.info("Archived chat_messages partition {} as {}", partition, archived);
+      }
+    }
+  }
+
+  public static String partitionName(YearMonth month) {
+    return TABLE + "_" + month.format(SUFFIX_FORMAT);
+  }
+}
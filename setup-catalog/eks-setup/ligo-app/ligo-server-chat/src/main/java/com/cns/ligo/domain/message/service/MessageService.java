@@ -1,10 +1,14 @@
 package com.cns.ligo.domain.message.service;
 
+import com.cns.ligo.domain.message.model.MessageCursor;
 import com.cns.ligo.domain.message.model.MessageEntity;
+import com.cns.ligo.domain.message.model.MessageHistoryPage;
+import com.cns.ligo.domain.message.model.MessageView;
 import com.cns.ligo.domain.message.repository.MessageRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Collections;
 
@@ -24,19 +28,28 @@ public class MessageService {
         return messageRepository.save(message);
     }
     
-    // Retrieve all messages
-    public List<MessageEntity> getAllMessages() {
-        return messageRepository.findAllByOrderByCreatedAtAsc();
+    // Save a batch of messages in a single transaction
+    @Transactional
+    public List<MessageEntity> saveMessages(List<MessageEntity> messages) {
+        return messageRepository.saveAll(messages);
     }
     
-    // Retrieve messages by room
-    public List<MessageEntity> getMessagesByRoom(String roomId) {
-        return messageRepository.findByRoomIdOrderByCreatedAtAsc(roomId);
+    // Retrieve one page of a room's history, newest first, older than the cursor if given
+    @Transactional(readOnly = true)
+    public MessageHistoryPage getRoomHistory(String roomId, MessageCursor cursor, int limit) {
+        List<MessageView> messages = cursor == null
+                ? messageRepository.findRoomHistory(roomId, limit)
+                : messageRepository.findRoomHistoryBefore(roomId, cursor.createdAt(), cursor.id(), limit);
+        String nextCursor = messages.size() < limit
+                ? null
+                : MessageCursor.of(messages.get(messages.size() - 1)).encode();
+        return new MessageHistoryPage(messages, nextCursor);
     }
     
-    // Retrieve recent messages
-    public List<MessageEntity> getRecentMessages(int limit) {
-        List<MessageEntity> messages = messageRepository.findRecentMessages(limit);
+    // Retrieve recent messages of a room in chronological order
+    @Transactional(readOnly = true)
+    public List<MessageView> getRecentMessages(String roomId, int limit) {
+        List<MessageView> messages = new ArrayList<>(messageRepository.findRoomHistory(roomId, limit));
         Collections.reverse(messages);
         return messages;
     }
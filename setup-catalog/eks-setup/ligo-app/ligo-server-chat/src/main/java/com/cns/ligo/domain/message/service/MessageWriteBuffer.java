@@ -0,0 +1,323 @@
+package com.cns.ligo.domain.message.service;
+
+import com.cns.ligo.domain.message.model.MessageEntity;
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.MessageType;
+import com.cns.ligo.message.Topics;
+import com.cns.ligo.message.kafka.JsonMessageSenderBroker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+// Write-behind buffer for chat messages.
+// Messages are queued in memory and flushed in batches, so broadcasting never waits on the insert.
+// This is at-most-once: the Kafka offset is committed once a message is queued, so whatever is still
+// buffered when the pod dies is lost (spring.chat.kafka.batch-listener persists before committing).
+// While the pod runs nothing is dropped; messages that can't be persisted go to messaging-dlt:
+// - a failed batch is saved again row by row, rows that still fail (bad data) are dead-lettered
+// - while the database is unavailable the batch is kept and retried every retry-interval-ms,
+//   and dead-lettered after max-attempts
+// - a message that finds the buffer full even after an inline flush is dead-lettered instead of
+//   holding the Kafka listener
+@Component
+public class MessageWriteBuffer {
+
+  private static final Logger logger = LoggerFactory.getLogger(MessageWriteBuffer.class);
+  private static final String DEAD_LETTER_TOPIC = Topics.deadLetterOf(Topics.MESSAGING);
+
+  private final MessageService messageService;
+  private final JsonMessageSenderBroker jsonMessageSenderBroker;
+  private final BlockingQueue<MessageEntity> buffer;
+  private final int batchSize;
+  private final long offerTimeoutMs;
+  private final int maxAttempts;
+  private final long retryIntervalNanos;
+
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+  private final ExecutorService flusher = Executors.newSingleThreadExecutor(
+      runnable -> new Thread(runnable, "message-write-behind"));
+
+  // rows the database couldn't take, retried before the buffer (guarded by flushLock)
+  private List<MessageEntity> retryBatch = List.of();
+  private int retryAttempts;
+  private long retryAt;
+  private final AtomicInteger retrying = new AtomicInteger();
+
+  private final Timer flushTimer;
+  private final Counter flushFailures;
+  private final Counter backpressureEvents;
+  private final Counter deadLetters;
+  private final Counter droppedMessages;
+
+  public MessageWriteBuffer(MessageService messageService, JsonMessageSenderBroker jsonMessageSenderBroker,
+      MeterRegistry meterRegistry,
+      @Value("${spring.chat.write-behind.capacity:10000}") int capacity,
+      @Value("${spring.chat.write-behind.batch-size:500}") int batchSize,
+      @Value("${spring.chat.write-behind.offer-timeout-ms:1000}") long offerTimeoutMs,
+      @Value("${spring.chat.write-behind.max-attempts:5}") int maxAttempts,
+      @Value("${spring.chat.write-behind.retry-interval-ms:2000}") long retryIntervalMs) {
+    this.messageService = messageService;
+    this.jsonMessageSenderBroker = jsonMessageSenderBroker;
+    this.buffer = new LinkedBlockingQueue<>(capacity);
+    this.batchSize = batchSize;
+    this.offerTimeoutMs = offerTimeoutMs;
+    this.maxAttempts = maxAttempts;
+    this.retryIntervalNanos = TimeUnit.MILLISECONDS.toNanos(retryIntervalMs);
+
+    // reads the queue and the retry count directly, the buffer itself isn't published before it's built
+    BlockingQueue<MessageEntity> queued = buffer;
+    AtomicInteger retryDepth = retrying;
+    Gauge.builder("chat.messages.write_buffer.depth", () -> queued.size() + retryDepth.get())
+        .description("Messages waiting to be persisted")
+        .register(meterRegistry);
+    this.flushTimer = Timer.builder("chat.messages.write_buffer.flush")
+        .description("Time spent persisting one batch of messages")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.flushFailures = meterRegistry.counter("chat.messages.write_buffer.flush.failures");
+    this.backpressureEvents = meterRegistry.counter("chat.messages.write_buffer.backpressure");
+    this.deadLetters = meterRegistry.counter("chat.messages.write_buffer.dead_letters");
+    this.droppedMessages = meterRegistry.counter("chat.messages.write_buffer.dropped");
+  }
+
+  // Queue a message for persistence.
+  // When the buffer is full the caller is held back (up to twice offer-timeout-ms, with an inline
+  // flush in between), which slows Kafka consumption down while Postgres is slow.
+  public void enqueue(MessageEntity message) {
+    try {
+      if (!buffer.offer(message, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+        backpressureEvents.increment();
+        logger.warn("Message write buffer is full, flushing on the caller thread");
+        flush();
+        if (!buffer.offer(message, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+          logger.error("Message write buffer is still full, sending message from {} to {}",
+              message.getSender(), DEAD_LETTER_TOPIC);
+          deadLetter(List.of(message));
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      deadLetter(List.of(message));
+      return;
+    }
+
+    if (buffer.size() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+      flusher.execute(() -> {
+        flushScheduled.set(false);
+        flush();
+      });
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${spring.chat.write-behind.flush-interval-ms:200}")
+  public void scheduledFlush() {
+    flush();
+  }
+
+  // Drain the buffer in batches of at most batchSize, one transaction per batch.
+  // Stops early while the database is unavailable; the rows already drained wait in retryBatch.
+  public void flush() {
+    if (!flushLock.tryLock()) {
+      return;
+    }
+    try {
+      if (!retryBatch.isEmpty()) {
+        if (System.nanoTime() - retryAt < 0) {
+          return;
+        }
+        List<MessageEntity> batch = retryBatch;
+        retryBatch = List.of();
+        if (!retryLater(persist(batch))) {
+          return;
+        }
+      }
+
+      List<MessageEntity> batch = new ArrayList<>(batchSize);
+      while (buffer.drainTo(batch, batchSize) > 0) {
+        if (!retryLater(persist(batch))) {
+          return;
+        }
+        batch.clear();
+      }
+    } finally {
+      retrying.set(retryBatch.size());
+      flushLock.unlock();
+    }
+  }
+
+  public int size() {
+    return buffer.size() + retrying.get();
+  }
+
+  // Messages of the room that are accepted but not persisted yet (queued or kept for a retry), oldest
+  // first. Taken under flushLock so a batch being saved is either still here or already committed.
+  public List<Message> pending(String roomId) {
+    flushLock.lock();
+    try {
+      List<Message> messages = new ArrayList<>();
+      for (MessageEntity message : retryBatch) {
+        if (roomId.equals(message.getRoomId())) {
+          messages.add(toMessage(message));
+        }
+      }
+      for (MessageEntity message : buffer) {
+        if (roomId.equals(message.getRoomId())) {
+          messages.add(toMessage(message));
+        }
+      }
+      return messages;
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  // Saves a batch and returns the rows to retry because the database is unavailable
+  private List<MessageEntity> persist(List<MessageEntity> batch) {
+    try {
+      flushTimer.record(() -> messageService.saveMessages(batch));
+      retryAttempts = 0;
+      return List.of();
+    } catch (RuntimeException e) {
+      flushFailures.increment();
+      // ids handed out in the rolled back transaction would make the next save a merge
+      batch.forEach(message -> message.setId(null));
+      if (isUnavailable(e)) {
+        logger.error("Failed to persist {} buffered messages, database unavailable", batch.size(), e);
+        return new ArrayList<>(batch);
+      }
+      logger.error("Failed to persist {} buffered messages, saving them one by one", batch.size(), e);
+      return persistEach(batch);
+    }
+  }
+
+  // One transaction per row, so a row the database rejects doesn't take the rest of the batch with it
+  private List<MessageEntity> persistEach(List<MessageEntity> batch) {
+    for (int i = 0; i < batch.size(); i++) {
+      MessageEntity message = batch.get(i);
+      try {
+        messageService.saveMessages(List.of(message));
+      } catch (RuntimeException e) {
+        message.setId(null);
+        if (isUnavailable(e)) {
+          return new ArrayList<>(batch.subList(i, batch.size()));
+        }
+        logger.error("Failed to persist message from {}, sending it to {}", message.getSender(),
+            DEAD_LETTER_TOPIC, e);
+        deadLetter(List.of(message));
+      }
+    }
+    retryAttempts = 0;
+    return List.of();
+  }
+
+  // Keeps rows for the next attempt, or dead-letters them once maxAttempts is used up.
+  // Returns true when there is nothing left to retry.
+  private boolean retryLater(List<MessageEntity> rows) {
+    if (rows.isEmpty()) {
+      return true;
+    }
+    if (++retryAttempts >= maxAttempts) {
+      logger.error("Giving up on {} messages after {} attempts, sending them to {}", rows.size(),
+          retryAttempts, DEAD_LETTER_TOPIC);
+      retryAttempts = 0;
+      deadLetter(rows);
+      return false;
+    }
+    retryBatch = rows;
+    retryAt = System.nanoTime() + retryIntervalNanos;
+    return false;
+  }
+
+  // the database (or the way to it) is down, rather than something wrong with the rows
+  private static boolean isUnavailable(RuntimeException e) {
+    return e instanceof CannotCreateTransactionException
+        || e instanceof DataAccessResourceFailureException
+        || e instanceof TransientDataAccessException
+        || e instanceof RecoverableDataAccessException;
+  }
+
+  // Published keyed by room like the original record; a message is only lost (and counted as
+  // dropped) when Kafka can't take it either.
+  private void deadLetter(List<MessageEntity> messages) {
+    deadLetters.increment(messages.size());
+    for (MessageEntity message : messages) {
+      try {
+        jsonMessageSenderBroker.sendToRoom(DEAD_LETTER_TOPIC, toMessage(message))
+            .whenComplete((result, e) -> {
+              if (e != null) {
+                dropped(message, e);
+              }
+            });
+      } catch (RuntimeException e) {
+        dropped(message, e);
+      }
+    }
+  }
+
+  private void dropped(MessageEntity message, Throwable cause) {
+    droppedMessages.increment();
+    logger.error("Dropped message from {} in room {}: not persisted and not dead-lettered",
+        message.getSender(), message.getRoomId(), cause);
+  }
+
+  private static Message toMessage(MessageEntity message) {
+    return Message.builder()
+        .id(message.getMessageId())
+        .type(MessageType.valueOf(message.getMessageType()))
+        .content(message.getContent())
+        .sender(message.getSender())
+        .roomId(message.getRoomId())
+        .build();
+  }
+
+  // Whatever could not be persisted by now is dead-lettered before the Kafka producer shuts down
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    flusher.shutdown();
+    flusher.awaitTermination(10, TimeUnit.SECONDS);
+    flushLock.lock();
+    try {
+      retryAt = System.nanoTime();
+    } finally {
+      flushLock.unlock();
+    }
+    flush();
+
+    flushLock.lock();
+    try {
+      List<MessageEntity> unsaved = new ArrayList<>(retryBatch);
+      buffer.drainTo(unsaved);
+      if (!unsaved.isEmpty()) {
+        logger.error("{} messages were not persisted before shutdown, sending them to {}", unsaved.size(),
+            DEAD_LETTER_TOPIC);
+        deadLetter(unsaved);
+      }
+      retryBatch = List.of();
+    } finally {
+      flushLock.unlock();
+    }
+  }
+}
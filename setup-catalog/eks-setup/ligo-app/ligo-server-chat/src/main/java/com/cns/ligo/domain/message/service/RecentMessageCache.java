@@ -0,0 +1,212 @@
+package com.cns.ligo.domain.message.service;
+
+import com.cns.ligo.domain.message.model.MessageView;
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.MessageType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Per-room ring buffer of the last N messages.
+// Filled by the Kafka consume path so recent history is served from memory instead of the database.
+// Only rooms that were read (or warmed up) are cached: writes never load a room. A cold room is
+// loaded from the database, plus the rows still waiting in the write buffer, outside the map lock;
+// messages that arrive meanwhile are kept, and a message that is both in the loaded history and
+// delivered again is kept once (by Message.id).
+@Component
+public class RecentMessageCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(RecentMessageCache.class);
+
+  private final MessageService messageService;
+  private final MessageWriteBuffer messageWriteBuffer;
+  private final Map<String, RoomBuffer> rooms = new ConcurrentHashMap<>();
+  private final int capacity;
+  private final long idleTimeoutNanos;
+  private final List<String> warmRooms;
+
+  private final Counter hits;
+  private final Counter misses;
+
+  public RecentMessageCache(MessageService messageService, MessageWriteBuffer messageWriteBuffer,
+      MeterRegistry meterRegistry,
+      @Value("${spring.chat.recent-cache.size:50}") int capacity,
+      @Value("${spring.chat.recent-cache.idle-timeout:30m}") Duration idleTimeout,
+      @Value("${spring.chat.recent-cache.warm-rooms:default}") List<String> warmRooms) {
+    this.messageService = messageService;
+    this.messageWriteBuffer = messageWriteBuffer;
+    this.capacity = capacity;
+    this.idleTimeoutNanos = idleTimeout.toNanos();
+    this.warmRooms = warmRooms;
+
+    this.hits = meterRegistry.counter("chat.messages.recent_cache.requests", "result", "hit");
+    this.misses = meterRegistry.counter("chat.messages.recent_cache.requests", "result", "miss");
+    Gauge.builder("chat.messages.recent_cache.rooms", rooms, Map::size)
+        .description("Rooms with cached recent messages")
+        .register(meterRegistry);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    for (String roomId : warmRooms) {
+      try {
+        loaded(roomId);
+      } catch (Exception e) {
+        logger.error("Failed to warm recent messages of room {}", roomId, e);
+      }
+    }
+    logger.info("Recent message cache warmed for {} rooms", rooms.size());
+  }
+
+  // Appends to rooms that are cached (or being loaded); other rooms are loaded when first read.
+  // Runs under the map's lock for the room, so it can't race with evictIdleRooms.
+  public void add(String roomId, Message message) {
+    rooms.computeIfPresent(roomId, (id, buffer) -> {
+      buffer.add(message);
+      return buffer;
+    });
+  }
+
+  // Last `limit` messages of the room in chronological order (at most the cache size)
+  public List<Message> getRecent(String roomId, int limit) {
+    RoomBuffer buffer = rooms.get(roomId);
+    if (buffer != null) {
+      hits.increment();
+      buffer.awaitLoaded();
+    } else {
+      misses.increment();
+      buffer = loaded(roomId);
+    }
+    return buffer.latest(limit);
+  }
+
+  @Scheduled(fixedDelayString = "${spring.chat.recent-cache.eviction-interval-ms:60000}")
+  public void evictIdleRooms() {
+    long now = System.nanoTime();
+    for (String roomId : rooms.keySet()) {
+      rooms.computeIfPresent(roomId, (id, buffer) -> now - buffer.lastAccess > idleTimeoutNanos ? null : buffer);
+    }
+  }
+
+  // The room's buffer, loading it from the database if it isn't cached yet.
+  // The empty buffer is registered first so add() collects what arrives during the query,
+  // and concurrent readers wait for this load instead of starting their own.
+  // Rows still in the write buffer were delivered before the room was cached and aren't in the
+  // database yet; they are read before the query, so a row flushed in between is found by the query.
+  private RoomBuffer loaded(String roomId) {
+    RoomBuffer buffer = new RoomBuffer(capacity);
+    RoomBuffer existing = rooms.putIfAbsent(roomId, buffer);
+    if (existing != null) {
+      existing.awaitLoaded();
+      return existing;
+    }
+    try {
+      List<Message> pending = messageWriteBuffer.pending(roomId);
+      List<Message> history = new ArrayList<>(capacity + pending.size());
+      for (MessageView view : messageService.getRecentMessages(roomId, capacity)) {
+        history.add(Message.builder()
+            .id(view.getMessageId())
+            .sender(view.getSender())
+            .content(view.getContent())
+            .type(MessageType.valueOf(view.getMessageType()))
+            .roomId(roomId)
+            .build());
+      }
+      history.addAll(pending);
+      buffer.loadHistory(history);
+      return buffer;
+    } catch (RuntimeException e) {
+      rooms.remove(roomId, buffer);
+      buffer.loadFailed(e);
+      throw e;
+    }
+  }
+
+  private static final class RoomBuffer {
+
+    private final Message[] ring;
+    private final Set<String> ids = new HashSet<>();
+    private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+    private int head;
+    private int size;
+    private volatile long lastAccess = System.nanoTime();
+
+    RoomBuffer(int capacity) {
+      this.ring = new Message[capacity];
+    }
+
+    synchronized void add(Message message) {
+      append(message);
+      lastAccess = System.nanoTime();
+    }
+
+    // Puts the stored history in front of the messages that arrived while it was queried
+    synchronized void loadHistory(List<Message> history) {
+      List<Message> arrived = latest(size);
+      Arrays.fill(ring, null);
+      ids.clear();
+      head = 0;
+      size = 0;
+      history.forEach(this::append);
+      arrived.forEach(this::append);
+      loaded.complete(null);
+    }
+
+    void loadFailed(RuntimeException e) {
+      loaded.completeExceptionally(e);
+    }
+
+    void awaitLoaded() {
+      try {
+        loaded.join();
+      } catch (CompletionException e) {
+        throw e.getCause() instanceof RuntimeException cause ? cause : e;
+      }
+    }
+
+    synchronized List<Message> latest(int limit) {
+      int count = Math.min(limit, size);
+      List<Message> messages = new ArrayList<>(count);
+      for (int i = size - count; i < size; i++) {
+        messages.add(ring[(head + i) % ring.length]);
+      }
+      lastAccess = System.nanoTime();
+      return messages;
+    }
+
+    // skips messages already in the buffer; messages without an id are always appended
+    private void append(Message message) {
+      if (message.getId() != null && !ids.add(message.getId())) {
+        return;
+      }
+      int tail = (head + size) % ring.length;
+      if (size < ring.length) {
+        size++;
+      } else {
+        Message oldest = ring[tail];
+        if (oldest.getId() != null) {
+          ids.remove(oldest.getId());
+        }
+        head = (head + 1) % ring.length;
+      }
+      ring[tail] = message;
+    }
+  }
+}
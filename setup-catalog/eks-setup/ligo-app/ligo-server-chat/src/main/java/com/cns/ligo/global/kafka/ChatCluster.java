@@ -0,0 +1,42 @@
+package com.cns.ligo.global.kafka;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Clustered delivery mode.
+// Persistence listeners stay in the shared "chat" group so every message is written once,
+// while delivery listeners use a group per instance so every pod sees every message
+// and pushes it to its own WebSocket sessions.
+// The instance id has to be stable across restarts (the StatefulSet pod name on EKS),
+// so a pod reuses its delivery group; scaled-down pods' groups expire with Kafka's offset retention.
+// Cost: the check-grammar and ask-ligobot replies go to a single session, yet every pod reads every
+// one of them (including each streamed LIGOBOT_CHUNK) and all but the pod holding the session drop
+// it, so reply traffic is multiplied by the number of pods. Routing replies to the owning pod would
+// need the instance id in the request and a per-pod reply topic or partition.
+@Component("chatCluster")
+public class ChatCluster {
+
+  private static final String SHARED_GROUP_ID = "chat";
+
+  private final boolean enabled;
+  private final String instanceId;
+
+  public ChatCluster(@Value("${spring.chat.cluster.enabled:false}") boolean enabled,
+      @Value("${spring.chat.cluster.instance-id}") String instanceId) {
+    this.enabled = enabled;
+    this.instanceId = instanceId;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public String getInstanceId() {
+    return instanceId;
+  }
+
+  // group used by the listeners that only deliver to local sessions
+  public String getDeliveryGroupId() {
+    return enabled ? SHARED_GROUP_ID + "-" + instanceId : SHARED_GROUP_ID;
+  }
+}
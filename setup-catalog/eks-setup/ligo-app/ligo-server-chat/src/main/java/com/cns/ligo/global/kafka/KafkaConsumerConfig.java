@@ -1,9 +1,13 @@
 package com.cns.ligo.global.kafka;
 
-import com.cns.ligo.domain.message.model.Message;
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.Topics;
+import com.cns.ligo.message.kafka.MessageDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -11,28 +15,90 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
 
 @Configuration
 public class KafkaConsumerConfig {
   @Value("${spring.kafka.consumer.bootstrap-servers}")
   private String bootstrapAddress;
 
+  @Value("${spring.chat.kafka.batch.max-poll-records:500}")
+  private int batchMaxPollRecords;
+
+  @Value("${spring.chat.kafka.batch.max-attempts:5}")
+  private int batchMaxAttempts;
+
+  @Value("${spring.chat.kafka.batch.retry-interval-ms:2000}")
+  private long batchRetryIntervalMs;
+
+  // consumer threads per listener; records are keyed by room (or session), so any value up to
+  // the partition count keeps each room in order
+  @Value("${spring.chat.kafka.listener.concurrency:1}")
+  private int listenerConcurrency;
+
+  private final ObjectMapper objectMapper;
+
+  public KafkaConsumerConfig(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
   @Bean
   public ConsumerFactory<String, Message> consumerFactory() {
-    Map<String, Object> configProps = new HashMap<>();
-    configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapAddress);
-    configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "chat");
-    configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-    configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-    return new DefaultKafkaConsumerFactory<>(configProps, new StringDeserializer(),
-        new JsonDeserializer<>(Message.class));
+    return new DefaultKafkaConsumerFactory<>(consumerProps(), new StringDeserializer(), messageDeserializer());
   }
 
   @Bean
   public ConcurrentKafkaListenerContainerFactory<String, Message> kafkaListenerContainerFactory() {
     ConcurrentKafkaListenerContainerFactory<String, Message> factory = new ConcurrentKafkaListenerContainerFactory<>();
     factory.setConsumerFactory(consumerFactory());
+    factory.setConcurrency(listenerConcurrency);
     return factory;
   }
+
+  // Batch mode: one poll is delivered to the listener as a list,
+  // offsets are committed once the listener returns (i.e. after the batch is persisted)
+  @Bean
+  public ConsumerFactory<String, Message> batchConsumerFactory() {
+    Map<String, Object> configProps = consumerProps();
+    configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchMaxPollRecords);
+    return new DefaultKafkaConsumerFactory<>(configProps, new StringDeserializer(), messageDeserializer());
+  }
+
+  // A batch that fails is redelivered (from the failed record on, see MessageController.consumeBatch)
+  // every batch.retry-interval-ms, up to batch.max-attempts deliveries. Then the failed records are
+  // published to messaging-dlt and only after that committed; if the dead-letter topic can't take
+  // them either, nothing is committed and the batch is delivered again.
+  @Bean
+  public ConcurrentKafkaListenerContainerFactory<String, Message> batchKafkaListenerContainerFactory(
+      KafkaTemplate<String, Message> kafkaTemplate) {
+    ConcurrentKafkaListenerContainerFactory<String, Message> factory = new ConcurrentKafkaListenerContainerFactory<>();
+    factory.setConsumerFactory(batchConsumerFactory());
+    factory.setConcurrency(listenerConcurrency);
+    factory.setBatchListener(true);
+    factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+    DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate,
+        (record, e) -> new TopicPartition(Topics.deadLetterOf(record.topic()), -1));
+    factory.setCommonErrorHandler(new DefaultErrorHandler(recoverer,
+        new FixedBackOff(batchRetryIntervalMs, Math.max(0, batchMaxAttempts - 1))));
+    return factory;
+  }
+
+  private Map<String, Object> consumerProps() {
+    Map<String, Object> configProps = new HashMap<>();
+    configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapAddress);
+    configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "chat");
+    return configProps;
+  }
+
+  // Every listener receives a typed Message parsed by the shared ObjectMapper.
+  // A record that can't be parsed is handed to the container error handler (logged and skipped)
+  // instead of failing the poll forever.
+  private ErrorHandlingDeserializer<Message> messageDeserializer() {
+    return new ErrorHandlingDeserializer<>(new MessageDeserializer(objectMapper));
+  }
 }
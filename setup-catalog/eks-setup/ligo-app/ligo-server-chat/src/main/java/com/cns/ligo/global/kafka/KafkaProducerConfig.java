@@ -1,38 +1,60 @@
-//package com.cns.ligo.global.kafka;
-//
-//import com.cns.ligo.domain.message.model.Message;
-//import java.util.HashMap;
-//import java.util.Map;
-//import org.springframework.beans.factory.annotation.Value;
-//import org.apache.kafka.clients.producer.ProducerConfig;
-//import org.apache.kafka.common.serialization.StringSerializer;
-//import org.springframework.context.annotation.Bean;
-//import org.springframework.context.annotation.Configuration;
-//import org.springframework.kafka.core.DefaultKafkaProducerFactory;
-//import org.springframework.kafka.core.KafkaTemplate;
-//import org.springframework.kafka.core.ProducerFactory;
-//import org.springframework.kafka.support.serializer.JsonSerializer;
-//
-//@Configuration
-//public class KafkaProducerConfig {
-//  @Value("${spring.kafka.producer.bootstrap-servers}")
-//  private String bootstrapAddress;
-//
-//  @Bean
-//  public <K, V> ProducerFactory<K, V> producerFactory() {
-//    Map<String, Object> configProps = new HashMap<>();
-//    configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapAddress);
-//    configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-//    configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-////    configProps.put(JsonSerializer.TYPE_MAPPINGS, "message:com.cns.ligo.domain.message.model.Message, message:com.cns.ligo_trans.domain.message.model.Message");
-////    configProps.put(ProducerConfig.RETRIES_CONFIG, 10);
-////    configProps.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, 5000);
-////    configProps.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 10000);
-//    return new DefaultKafkaProducerFactory<>(configProps);
-//  }
-//
-//  @Bean
-//  public <K, V> KafkaTemplate<K, V> kafkaTemplate() {
-//    return new KafkaTemplate<>(producerFactory());
-//  }
-//}
+package com.cns.ligo.global.kafka;
+
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.kafka.JsonMessageSenderBroker;
+import com.cns.ligo.message.kafka.MessageSerializer;
+import com.cns.ligo.message.kafka.ProducerProfile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+@Configuration
+public class KafkaProducerConfig {
+  @Value("${spring.kafka.producer.bootstrap-servers}")
+  private String bootstrapAddress;
+
+  @Value("${spring.chat.kafka.producer.profile:balanced}")
+  private String producerProfile;
+
+  @Value("${spring.chat.kafka.producer.wire-format:json}")
+  private String wireFormat;
+
+  private final ObjectMapper objectMapper;
+
+  public KafkaProducerConfig(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  // Messages are written once, as plain JSON with the shared ObjectMapper or in the binary
+  // MessageCodec format. No type headers: consumers (MessageDeserializer) always read a Message.
+  // Batching / compression / idempotence come from the selected ProducerProfile.
+  @Bean
+  public ProducerFactory<String, Message> producerFactory() {
+    Map<String, Object> configProps = new HashMap<>(ProducerProfile.of(producerProfile).getProperties());
+    configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapAddress);
+//    configProps.put(ProducerConfig.RETRIES_CONFIG, 10);
+//    configProps.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, 5000);
+//    configProps.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 10000);
+    MessageSerializer valueSerializer =
+        new MessageSerializer(objectMapper, MessageSerializer.WireFormat.of(wireFormat));
+    return new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(), valueSerializer);
+  }
+
+  @Bean
+  public KafkaTemplate<String, Message> kafkaTemplate() {
+    return new KafkaTemplate<>(producerFactory());
+  }
+
+  @Bean
+  public JsonMessageSenderBroker jsonMessageSenderBroker(KafkaTemplate<String, Message> kafkaTemplate) {
+    return new JsonMessageSenderBroker(kafkaTemplate);
+  }
+}
@@ -0,0 +1,77 @@
+package com.cns.ligo.global.websocket;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+
+// In-process STOMP broker that fans out on a fixed set of worker threads.
+// SUBSCRIBE/UNSUBSCRIBE/DISCONNECT handling is inherited from the simple broker, and so is delivery:
+// each worker runs the simple broker's send path for its own shard of the subscribers (by session
+// hash), which keeps the per-session bookkeeping (last write time for heartbeats) intact.
+// A session is always served by the same worker, and publish order is preserved on the client
+// outbound channel (an ExecutorSubscribableChannel backed by a thread pool), so a session's messages
+// reach its WebSocket in the order they were published.
+// The payload is converted once by the messaging template and shared by every subscriber.
+public class ShardedBrokerMessageHandler extends SimpleBrokerMessageHandler {
+
+  private final ShardedSubscriptionRegistry registry;
+  private final List<ExecutorService> workers;
+
+  private ShardedBrokerMessageHandler(SubscribableChannel clientInboundChannel, MessageChannel clientOutboundChannel,
+      SubscribableChannel brokerChannel, Collection<String> destinationPrefixes,
+      ShardedSubscriptionRegistry registry) {
+    super(clientInboundChannel, clientOutboundChannel, brokerChannel, destinationPrefixes);
+    this.registry = registry;
+    this.workers = IntStream.range(0, registry.getShardCount())
+        .mapToObj(ShardedBrokerMessageHandler::newWorker)
+        .toList();
+  }
+
+  public static ShardedBrokerMessageHandler create(SubscribableChannel clientInboundChannel,
+      MessageChannel clientOutboundChannel, SubscribableChannel brokerChannel, Collection<String> destinationPrefixes,
+      ShardedSubscriptionRegistry registry) {
+    ShardedBrokerMessageHandler handler = new ShardedBrokerMessageHandler(clientInboundChannel,
+        clientOutboundChannel, brokerChannel, destinationPrefixes, registry);
+    handler.setSubscriptionRegistry(registry);
+    // each session sends through an OrderedMessageChannelDecorator, one frame at a time
+    handler.setPreservePublishOrder(true);
+    return handler;
+  }
+
+  private static ExecutorService newWorker(int shard) {
+    String name = "stomp-broker-shard-" + shard;
+    return Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @Override
+  protected void sendMessageToSubscribers(@Nullable String destination, Message<?> message) {
+    if (destination == null) {
+      return;
+    }
+    for (int shard = 0; shard < workers.size(); shard++) {
+      if (registry.hasSubscribers(destination, shard)) {
+        Message<?> shardMessage = ShardedSubscriptionRegistry.forShard(message, shard);
+        workers.get(shard).execute(() -> super.sendMessageToSubscribers(destination, shardMessage));
+      }
+    }
+  }
+
+  @Override
+  public void stopInternal() {
+    super.stopInternal();
+    for (ExecutorService worker : workers) {
+      worker.shutdown();
+    }
+  }
+}
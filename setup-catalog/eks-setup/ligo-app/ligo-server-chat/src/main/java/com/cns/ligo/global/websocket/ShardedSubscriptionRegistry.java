@@ -0,0 +1,204 @@
+package com.cns.ligo.global.websocket;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
+
+// Subscription registry for ShardedBrokerMessageHandler.
+// Subscribers of each destination are split into shards by session hash, so every broker worker
+// iterates only its own shard. Lookups on the publish path are plain ConcurrentHashMap reads.
+@Component
+public class ShardedSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+  // internal header, never sent to clients: only native headers are written to the STOMP frame
+  static final String SHARD_HEADER = "ligoBrokerShard";
+
+  private final int shardCount;
+  private final PathMatcher pathMatcher = new AntPathMatcher();
+
+  // destination -> shards of (sessionId -> subscriptionIds); pattern subscriptions are kept apart
+  // so the common exact-destination lookup is a single map read
+  private final ConcurrentMap<String, DestinationSubscribers> destinations = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, DestinationSubscribers> patterns = new ConcurrentHashMap<>();
+  // sessionId -> (subscriptionId -> destination), used to unsubscribe and on disconnect
+  private final ConcurrentMap<String, ConcurrentMap<String, String>> sessions = new ConcurrentHashMap<>();
+
+  public ShardedSubscriptionRegistry(@Value("${spring.chat.websocket.broker-shards:0}") int shardCount) {
+    this.shardCount = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+  }
+
+  public int getShardCount() {
+    return shardCount;
+  }
+
+  public int shardOf(String sessionId) {
+    return Math.floorMod(sessionId.hashCode(), shardCount);
+  }
+
+  // Whether any local session subscribes to the destination (exactly or through a pattern)
+  public boolean hasSubscribers(String destination) {
+    return getSubscriberCount(destination) > 0;
+  }
+
+  public int getSubscriberCount(String destination) {
+    DestinationSubscribers exact = destinations.get(destination);
+    int count = exact != null ? exact.sessionCount() : 0;
+    if (!patterns.isEmpty()) {
+      for (Map.Entry<String, DestinationSubscribers> entry : patterns.entrySet()) {
+        if (pathMatcher.match(entry.getKey(), destination)) {
+          count += entry.getValue().sessionCount();
+        }
+      }
+    }
+    return count;
+  }
+
+  public boolean hasSubscribers(String destination, int shard) {
+    DestinationSubscribers exact = destinations.get(destination);
+    if (exact != null && !exact.shards.get(shard).isEmpty()) {
+      return true;
+    }
+    if (!patterns.isEmpty()) {
+      for (Map.Entry<String, DestinationSubscribers> entry : patterns.entrySet()) {
+        if (!entry.getValue().shards.get(shard).isEmpty() && pathMatcher.match(entry.getKey(), destination)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  // Visit every (sessionId, subscriptionId) of the destination that belongs to the shard
+  public void forEachSubscription(String destination, int shard, BiConsumer<String, String> action) {
+    DestinationSubscribers exact = destinations.get(destination);
+    if (exact != null) {
+      exact.forEach(shard, action);
+    }
+    if (!patterns.isEmpty()) {
+      for (Map.Entry<String, DestinationSubscribers> entry : patterns.entrySet()) {
+        if (pathMatcher.match(entry.getKey(), destination)) {
+          entry.getValue().forEach(shard, action);
+        }
+      }
+    }
+  }
+
+  @Override
+  protected void addSubscriptionInternal(String sessionId, String subscriptionId, String destination,
+      Message<?> message) {
+    sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(subscriptionId, destination);
+    mapFor(destination).compute(destination, (key, subscribers) -> {
+      DestinationSubscribers result = subscribers != null ? subscribers : new DestinationSubscribers(shardCount);
+      result.add(shardOf(sessionId), sessionId, subscriptionId);
+      return result;
+    });
+  }
+
+  @Override
+  protected void removeSubscriptionInternal(String sessionId, String subscriptionId, Message<?> message) {
+    ConcurrentMap<String, String> subscriptions = sessions.get(sessionId);
+    if (subscriptions == null) {
+      return;
+    }
+    String destination = subscriptions.remove(subscriptionId);
+    if (destination != null) {
+      removeFromDestination(destination, sessionId, subscriptionId);
+    }
+  }
+
+  @Override
+  public void unregisterAllSubscriptions(String sessionId) {
+    ConcurrentMap<String, String> subscriptions = sessions.remove(sessionId);
+    if (subscriptions != null) {
+      subscriptions.forEach((subscriptionId, destination) ->
+          removeFromDestination(destination, sessionId, subscriptionId));
+    }
+  }
+
+  // Copy of the message whose lookups only see one shard (see findSubscriptionsInternal)
+  public static Message<?> forShard(Message<?> message, int shard) {
+    return MessageBuilder.fromMessage(message).setHeader(SHARD_HEADER, shard).build();
+  }
+
+  // Subscriptions of the shard named by the message's SHARD_HEADER, which is how each worker of
+  // the sharded broker gets only its own sessions; all shards when the header is absent.
+  @Override
+  protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+    MultiValueMap<String, String> result = new LinkedMultiValueMap<>();
+    Integer shard = message.getHeaders().get(SHARD_HEADER, Integer.class);
+    if (shard != null) {
+      forEachSubscription(destination, shard, result::add);
+      return result;
+    }
+    for (int i = 0; i < shardCount; i++) {
+      forEachSubscription(destination, i, result::add);
+    }
+    return result;
+  }
+
+  private void removeFromDestination(String destination, String sessionId, String subscriptionId) {
+    mapFor(destination).computeIfPresent(destination, (key, subscribers) -> {
+      subscribers.remove(shardOf(sessionId), sessionId, subscriptionId);
+      return subscribers.isEmpty() ? null : subscribers;
+    });
+  }
+
+  private ConcurrentMap<String, DestinationSubscribers> mapFor(String destination) {
+    return pathMatcher.isPattern(destination) ? patterns : destinations;
+  }
+
+  private static final class DestinationSubscribers {
+
+    private final List<ConcurrentMap<String, Set<String>>> shards;
+
+    DestinationSubscribers(int shardCount) {
+      this.shards = IntStream.range(0, shardCount)
+          .<ConcurrentMap<String, Set<String>>>mapToObj(i -> new ConcurrentHashMap<>())
+          .toList();
+    }
+
+    void add(int shard, String sessionId, String subscriptionId) {
+      shards.get(shard).computeIfAbsent(sessionId, id -> ConcurrentHashMap.newKeySet()).add(subscriptionId);
+    }
+
+    void remove(int shard, String sessionId, String subscriptionId) {
+      shards.get(shard).computeIfPresent(sessionId, (id, subscriptionIds) -> {
+        subscriptionIds.remove(subscriptionId);
+        return subscriptionIds.isEmpty() ? null : subscriptionIds;
+      });
+    }
+
+    void forEach(int shard, BiConsumer<String, String> action) {
+      shards.get(shard).forEach((sessionId, subscriptionIds) -> {
+        for (String subscriptionId : subscriptionIds) {
+          action.accept(sessionId, subscriptionId);
+        }
+      });
+    }
+
+    int sessionCount() {
+      int count = 0;
+      for (ConcurrentMap<String, Set<String>> shard : shards) {
+        count += shard.size();
+      }
+      return count;
+    }
+
+    boolean isEmpty() {
+      return sessionCount() == 0;
+    }
+  }
+}
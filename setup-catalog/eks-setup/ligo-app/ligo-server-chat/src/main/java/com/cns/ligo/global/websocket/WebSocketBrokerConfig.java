@@ -0,0 +1,41 @@
+package com.cns.ligo.global.websocket;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.user.UserDestinationResolver;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
+
+// Replaces @EnableWebSocketMessageBroker so the simple broker can be swapped for the sharded one.
+// Broker prefixes and endpoints are still declared in WebSocketConfig.
+@Configuration
+public class WebSocketBrokerConfig extends DelegatingWebSocketMessageBrokerConfiguration {
+
+  private final ShardedSubscriptionRegistry subscriptionRegistry;
+
+  public WebSocketBrokerConfig(ShardedSubscriptionRegistry subscriptionRegistry) {
+    this.subscriptionRegistry = subscriptionRegistry;
+  }
+
+  @Override
+  @Bean
+  @Nullable
+  public AbstractBrokerMessageHandler simpleBrokerMessageHandler(
+      @Qualifier("clientInboundChannel") AbstractSubscribableChannel clientInboundChannel,
+      @Qualifier("clientOutboundChannel") AbstractSubscribableChannel clientOutboundChannel,
+      @Qualifier("brokerChannel") AbstractSubscribableChannel brokerChannel,
+      UserDestinationResolver userDestinationResolver) {
+
+    // let the registry resolve the configured simple broker, then reuse its destination prefixes
+    AbstractBrokerMessageHandler simpleBroker = super.simpleBrokerMessageHandler(
+        clientInboundChannel, clientOutboundChannel, brokerChannel, userDestinationResolver);
+    if (simpleBroker == null) {
+      return null;
+    }
+    return ShardedBrokerMessageHandler.create(clientInboundChannel, clientOutboundChannel, brokerChannel,
+        simpleBroker.getDestinationPrefixes(), subscriptionRegistry);
+  }
+}
@@ -3,12 +3,11 @@ package com.cns.ligo.global.websocket;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+// Broker infrastructure is set up by WebSocketBrokerConfig (sharded in-process broker)
 @Configuration
-@EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
   @Value("${spring.frontend.server-url}")
@@ -16,7 +15,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
   @Override
   public void configureMessageBroker(MessageBrokerRegistry config) {
-    config.enableSimpleBroker("/topic", "/queue"); //server -> client
+    config.enableSimpleBroker("/topic", "/queue"); //server -> client (served by ShardedBrokerMessageHandler)
     config.setUserDestinationPrefix("/user"); // Định nghĩa prefix cho tin nhắn riêng
     config.setApplicationDestinationPrefixes("/app"); // client -> server
   }
@@ -1,7 +1,8 @@
 package com.cns.ligo.global.websocket;
 
-import com.cns.ligo.domain.message.model.Message;
-import com.cns.ligo.domain.message.model.MessageType;
+import com.cns.ligo.domain.message.model.ChatRooms;
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.MessageType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.event.EventListener;
@@ -30,13 +31,15 @@ public class WebSocketEventListener {
   public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
     StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
     String username = (String) headerAccessor.getSessionAttributes().get("username");
+    String roomId = (String) headerAccessor.getSessionAttributes().get("roomId");
 
     if (username != null) {
       logger.info("User Disconnected: " + username);
       Message chatMessage = new Message();
       chatMessage.setType(MessageType.DISCONNECT);
       chatMessage.setSender(username);
-      messagingTemplate.convertAndSend("/topic/public", chatMessage);
+      chatMessage.setRoomId(roomId != null ? roomId : ChatRooms.DEFAULT_ROOM);
+      messagingTemplate.convertAndSend(ChatRooms.destination(chatMessage.getRoomId()), chatMessage);
     }
   }
 }
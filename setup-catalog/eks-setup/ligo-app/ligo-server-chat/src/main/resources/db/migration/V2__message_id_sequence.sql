@@ -0,0 +1,12 @@
+-- Pooled sequence for chat message ids.
+-- MessageEntity allocates ids in blocks of 50 (allocationSize), which lets Hibernate
+-- batch inserts instead of fetching a generated IDENTITY value after every row.
+
+CREATE SEQUENCE IF NOT EXISTS chat_messages_seq INCREMENT BY 50;
+
+-- Start the first allocated block right after the existing rows
+SELECT setval('chat_messages_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM chat_messages), false);
+
+-- Keep plain SQL inserts on the same sequence
+ALTER TABLE chat_messages ALTER COLUMN id SET DEFAULT nextval('chat_messages_seq');
+ALTER SEQUENCE chat_messages_seq OWNED BY chat_messages.id;
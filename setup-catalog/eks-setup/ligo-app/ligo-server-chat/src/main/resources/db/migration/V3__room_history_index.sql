@@ -0,0 +1,6 @@
+-- Composite index for keyset pagination of a room's history on (created_at, id).
+-- It also covers lookups by room_id alone, so the single-column index is dropped.
+
+CREATE INDEX IF NOT EXISTS idx_chat_messages_room_created_id ON chat_messages(room_id, created_at, id);
+
+DROP INDEX IF EXISTS idx_chat_messages_room_id;
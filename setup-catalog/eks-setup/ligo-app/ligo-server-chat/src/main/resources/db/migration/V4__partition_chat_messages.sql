@@ -0,0 +1,44 @@
+-- Range-partition chat_messages by month on created_at.
+-- Existing rows are copied into monthly partitions; future partitions are created and
+-- old ones archived by MessagePartitionManager according to the retention policy.
+-- The primary key has to include the partition key, so it becomes (id, created_at).
+
+ALTER SEQUENCE chat_messages_seq OWNED BY NONE;
+ALTER TABLE chat_messages RENAME TO chat_messages_legacy;
+
+CREATE TABLE chat_messages (
+    id BIGINT NOT NULL DEFAULT nextval('chat_messages_seq'),
+    sender VARCHAR(255) NOT NULL,
+    content TEXT,
+    message_type VARCHAR(50) NOT NULL,
+    room_id VARCHAR(255),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Monthly partitions from the oldest existing message up to two months ahead
+DO $$
+DECLARE
+    month_start DATE := date_trunc('month', COALESCE((SELECT MIN(created_at) FROM chat_messages_legacy), now()))::date;
+    last_month DATE := (date_trunc('month', now()) + interval '2 months')::date;
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF chat_messages FOR VALUES FROM (%L) TO (%L)',
+            'chat_messages_' || to_char(month_start, 'YYYY_MM'),
+            month_start,
+            (month_start + interval '1 month')::date);
+        month_start := (month_start + interval '1 month')::date;
+    END LOOP;
+END $$;
+
+-- Safety net for rows outside the maintained range, expected to stay empty
+CREATE TABLE chat_messages_default PARTITION OF chat_messages DEFAULT;
+
+INSERT INTO chat_messages (id, sender, content, message_type, room_id, created_at)
+SELECT id, sender, content, message_type, room_id, created_at FROM chat_messages_legacy;
+
+DROP TABLE chat_messages_legacy;
+
+CREATE INDEX idx_chat_messages_room_created_id ON chat_messages(room_id, created_at, id);
+
+ALTER SEQUENCE chat_messages_seq OWNED BY chat_messages.id;
@@ -0,0 +1,5 @@
+-- Message.id assigned by the chat service when a message is sent, so a stored row and the
+-- Kafka record it came from can be matched (e.g. by the recent message cache).
+-- Nullable: rows persisted before this migration have none.
+
+ALTER TABLE chat_messages ADD COLUMN message_id VARCHAR(36);
@@ -0,0 +1,6 @@
+-- Flyway callback, runs before every migrate.
+-- Databases whose chat_messages was created by Hibernate ddl-auto (baselined at V1) have an
+-- identity id column, and Postgres refuses the sequence default V2 sets on an identity column.
+-- This has to happen before V2, so it can't be a later versioned migration; it is a no-op once
+-- the column has no identity (and before V1 creates the table).
+ALTER TABLE IF EXISTS chat_messages ALTER COLUMN id DROP IDENTITY IF EXISTS;
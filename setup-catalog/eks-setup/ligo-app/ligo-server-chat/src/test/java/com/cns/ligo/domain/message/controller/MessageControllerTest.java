@@ -0,0 +1,67 @@
+package com.cns.ligo.domain.message.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.cns.ligo.domain.message.broker.Sender;
+import com.cns.ligo.domain.message.model.MessageCursor;
+import com.cns.ligo.domain.message.model.MessageHistoryPage;
+import com.cns.ligo.domain.message.service.MessageService;
+import com.cns.ligo.domain.message.service.MessageWriteBuffer;
+import com.cns.ligo.domain.message.service.RecentMessageCache;
+import com.cns.ligo.global.kafka.ChatCluster;
+import com.cns.ligo.global.websocket.ShardedSubscriptionRegistry;
+import com.cns.ligo.message.kafka.JsonMessageSenderBroker;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+
+class MessageControllerTest {
+
+  private final MessageService messageService = mock(MessageService.class);
+  private final MessageController controller = new MessageController(mock(Sender.class),
+      mock(SimpMessageSendingOperations.class), mock(JsonMessageSenderBroker.class), messageService,
+      mock(MessageWriteBuffer.class), mock(RecentMessageCache.class), mock(ChatCluster.class),
+      mock(ShardedSubscriptionRegistry.class));
+
+  @Test
+  void historyOfAnInvalidRoomIsABadRequest() {
+    assertThat(controller.getRoomHistory("team a/../*", null, 50).getStatusCode())
+        .isEqualTo(HttpStatus.BAD_REQUEST);
+    verifyNoInteractions(messageService);
+  }
+
+  @Test
+  void invalidCursorsAreABadRequest() {
+    for (String cursor : List.of("not base64!", encode("no separator"), encode("yesterday|42"),
+        encode("2026-10-18T12:30|latest"))) {
+      assertThat(controller.getRoomHistory("team-a", cursor, 50).getStatusCode())
+          .as(cursor).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+    verifyNoInteractions(messageService);
+  }
+
+  @Test
+  void validCursorIsPassedOnAndThePageSizeClamped() {
+    MessageCursor cursor = new MessageCursor(LocalDateTime.of(2026, 10, 18, 12, 30), 42);
+    MessageHistoryPage page = new MessageHistoryPage(List.of(), null);
+    when(messageService.getRoomHistory(anyString(), any(), anyInt())).thenReturn(page);
+
+    assertThat(controller.getRoomHistory("team-a", cursor.encode(), 10_000).getBody()).isSameAs(page);
+    verify(messageService).getRoomHistory("team-a", cursor, 200);
+  }
+
+  private static String encode(String raw) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,46 @@
+package com.cns.ligo.domain.message.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.cns.ligo.domain.message.model.MessageEntity;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+@DataJpaTest(properties = {
+    "spring.flyway.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class MessageRepositoryBatchInsertTest {
+
+  private static final int MESSAGE_COUNT = 200;
+
+  @Autowired
+  private MessageRepository messageRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Test
+  void saveAllBatchesInserts() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    List<MessageEntity> messages = IntStream.range(0, MESSAGE_COUNT)
+        .mapToObj(i -> new MessageEntity("user" + i, "message " + i, "CHAT", "default"))
+        .toList();
+    messageRepository.saveAll(messages);
+    messageRepository.flush();
+
+    // one statement per insert batch and per id block, instead of one per message
+    assertThat(statistics.getPrepareStatementCount()).isLessThan(MESSAGE_COUNT / 10);
+    assertThat(messageRepository.count()).isEqualTo(MESSAGE_COUNT);
+  }
+}
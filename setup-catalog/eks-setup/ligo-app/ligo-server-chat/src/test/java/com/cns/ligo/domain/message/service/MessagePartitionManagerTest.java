@@ -0,0 +1,100 @@
+package com.cns.ligo.domain.message.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.cns.ligo.domain.message.model.MessageEntity;
+import com.cns.ligo.domain.message.repository.MessageRepository;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+// Runs the Flyway migrations against a throwaway local Postgres (skipped when Docker is unavailable)
+@DataJpaTest(properties = {
+    "spring.flyway.enabled=true",
+    "spring.chat.partition.premake-months=2",
+    "spring.chat.partition.retention-months=12"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import(MessagePartitionManager.class)
+class MessagePartitionManagerTest {
+
+  @Container
+  @ServiceConnection
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+  @Autowired
+  private MessagePartitionManager partitionManager;
+
+  @Autowired
+  private MessageRepository messageRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void createsPartitionsAhead() {
+    YearMonth current = YearMonth.now().plusYears(1);
+
+    partitionManager.maintain(current);
+
+    assertThat(partitionManager.listPartitions()).contains(
+        MessagePartitionManager.partitionName(current),
+        MessagePartitionManager.partitionName(current.plusMonths(1)),
+        MessagePartitionManager.partitionName(current.plusMonths(2)));
+  }
+
+  @Test
+  void archivesPartitionsOlderThanRetention() {
+    YearMonth old = YearMonth.now().minusYears(2);
+    partitionManager.createPartition(old);
+
+    partitionManager.maintain(YearMonth.now());
+
+    assertThat(partitionManager.listPartitions()).doesNotContain(MessagePartitionManager.partitionName(old));
+    Integer archived = jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM pg_class WHERE relname = ?", Integer.class,
+        "chat_messages_archive_" + MessagePartitionManager.partitionName(old).substring("chat_messages_".length()));
+    assertThat(archived).isEqualTo(1);
+  }
+
+  @Test
+  void messagesAreRoutedToTheirMonthlyPartition() {
+    MessageEntity message = new MessageEntity("user", "hello", "CHAT", "default");
+    message.setCreatedAt(LocalDateTime.now());
+    messageRepository.saveAndFlush(message);
+
+    Integer rows = jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM " + MessagePartitionManager.partitionName(YearMonth.now()), Integer.class);
+    assertThat(rows).isEqualTo(1);
+  }
+
+  @Test
+  void rowsInTheDefaultPartitionMoveToTheNewPartition() {
+    YearMonth month = YearMonth.now().plusYears(3);
+    String partition = MessagePartitionManager.partitionName(month);
+    MessageEntity message = new MessageEntity("user", "ahead of the partitions", "CHAT", "default");
+    message.setCreatedAt(month.atDay(15).atStartOfDay());
+    messageRepository.saveAndFlush(message);
+    assertThat(count("chat_messages_default")).isEqualTo(1);
+
+    partitionManager.createPartition(month);
+
+    assertThat(count(partition)).isEqualTo(1);
+    assertThat(count("chat_messages_default")).isZero();
+    assertThat(partitionManager.listPartitions()).contains(partition, "chat_messages_default");
+  }
+
+  private int count(String table) {
+    return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Integer.class);
+  }
+}
@@ -0,0 +1,122 @@
+package com.cns.ligo.domain.message.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.cns.ligo.domain.message.model.MessageCursor;
+import com.cns.ligo.domain.message.model.MessageHistoryPage;
+import com.cns.ligo.domain.message.model.MessageView;
+import com.cns.ligo.domain.message.repository.MessageRepository;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+class MessageServiceTest {
+
+  private static final String ROOM = "team-a";
+  private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 18, 12, 30, 15, 123_456_000);
+
+  private final MessageRepository messageRepository = mock(MessageRepository.class);
+  private final MessageService messageService = new MessageService(messageRepository);
+
+  @Test
+  void cursorSurvivesEncodeAndDecode() {
+    MessageCursor cursor = new MessageCursor(NOW, 42);
+
+    String encoded = cursor.encode();
+
+    assertThat(encoded).matches("[A-Za-z0-9_-]+");
+    assertThat(MessageCursor.decode(encoded)).isEqualTo(cursor);
+  }
+
+  @Test
+  void malformedCursorsAreRejected() {
+    assertThatThrownBy(() -> MessageCursor.decode("not base64!")).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> MessageCursor.decode(encode("no separator")))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> MessageCursor.decode(encode("yesterday|42")))
+        .isInstanceOf(DateTimeParseException.class);
+    assertThatThrownBy(() -> MessageCursor.decode(encode(NOW + "|latest")))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void shortPageIsTheLastOne() {
+    when(messageRepository.findRoomHistory(ROOM, 3)).thenReturn(messages(3, 2));
+
+    MessageHistoryPage page = messageService.getRoomHistory(ROOM, null, 3);
+
+    assertThat(page.getMessages()).hasSize(2);
+    assertThat(page.getNextCursor()).isNull();
+  }
+
+  @Test
+  void fullPagePointsAfterItsOldestMessage() {
+    List<MessageView> messages = messages(3, 2, 1);
+    when(messageRepository.findRoomHistory(ROOM, 3)).thenReturn(messages);
+
+    MessageHistoryPage page = messageService.getRoomHistory(ROOM, null, 3);
+
+    assertThat(MessageCursor.decode(page.getNextCursor())).isEqualTo(new MessageCursor(NOW.plusSeconds(1), 1));
+  }
+
+  @Test
+  void nextPageStartsBeforeTheCursor() {
+    MessageCursor cursor = new MessageCursor(NOW.plusSeconds(1), 1);
+    when(messageRepository.findRoomHistoryBefore(ROOM, cursor.createdAt(), cursor.id(), 3)).thenReturn(List.of());
+
+    MessageHistoryPage page = messageService.getRoomHistory(ROOM, cursor, 3);
+
+    // the previous page was exactly full: the next one is empty and final
+    assertThat(page.getMessages()).isEmpty();
+    assertThat(page.getNextCursor()).isNull();
+  }
+
+  private static String encode(String raw) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  // message i was created i seconds after NOW; pass the ids newest first
+  private static List<MessageView> messages(long... ids) {
+    return LongStream.of(ids).<MessageView>mapToObj(id -> new StoredMessage(id, NOW.plusSeconds(id))).toList();
+  }
+
+  private record StoredMessage(long id, LocalDateTime createdAt) implements MessageView {
+
+    @Override
+    public Long getId() {
+      return id;
+    }
+
+    @Override
+    public String getMessageId() {
+      return "m" + id;
+    }
+
+    @Override
+    public String getSender() {
+      return "alice";
+    }
+
+    @Override
+    public String getContent() {
+      return "message " + id;
+    }
+
+    @Override
+    public String getMessageType() {
+      return "CHAT";
+    }
+
+    @Override
+    public LocalDateTime getCreatedAt() {
+      return createdAt;
+    }
+  }
+}
@@ -0,0 +1,194 @@
+package com.cns.ligo.domain.message.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cns.ligo.domain.message.model.MessageEntity;
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.kafka.JsonMessageSenderBroker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+class MessageWriteBufferTest {
+
+  private static final String DEAD_LETTER_TOPIC = "messaging-dlt";
+
+  private final MessageService messageService = mock(MessageService.class);
+  private final JsonMessageSenderBroker jsonMessageSenderBroker = mock(JsonMessageSenderBroker.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  // every saveMessages call, copied because the buffer reuses its batch list
+  private final List<List<String>> saved = new ArrayList<>();
+  private final List<String> deadLettered = new ArrayList<>();
+  private volatile Function<List<MessageEntity>, RuntimeException> failure = batch -> null;
+  private MessageWriteBuffer writeBuffer;
+
+  MessageWriteBufferTest() {
+    when(messageService.saveMessages(anyList())).thenAnswer(invocation -> {
+      List<MessageEntity> batch = invocation.getArgument(0);
+      RuntimeException e = failure.apply(batch);
+      if (e != null) {
+        throw e;
+      }
+      synchronized (saved) {
+        saved.add(batch.stream().map(MessageEntity::getContent).toList());
+      }
+      return batch;
+    });
+    when(jsonMessageSenderBroker.sendToRoom(eq(DEAD_LETTER_TOPIC), any(Message.class))).thenAnswer(invocation -> {
+      Message message = invocation.getArgument(1);
+      synchronized (deadLettered) {
+        deadLettered.add(message.getContent());
+      }
+      return new CompletableFuture<>();
+    });
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    writeBuffer.shutdown();
+  }
+
+  @Test
+  void flushesOnceABatchIsFull() throws InterruptedException {
+    writeBuffer = newWriteBuffer(10, 3, 3);
+
+    writeBuffer.enqueue(message("one"));
+    writeBuffer.enqueue(message("two"));
+    verify(messageService, never()).saveMessages(anyList());
+
+    writeBuffer.enqueue(message("three"));
+    verify(messageService, timeout(5000)).saveMessages(anyList());
+    // waits for the background flush to finish
+    writeBuffer.shutdown();
+    assertThat(saved).containsExactly(List.of("one", "two", "three"));
+    assertThat(writeBuffer.size()).isZero();
+  }
+
+  @Test
+  void flushesOnTheIntervalBelowTheBatchSize() {
+    writeBuffer = newWriteBuffer(10, 500, 3);
+
+    writeBuffer.enqueue(message("one"));
+    writeBuffer.enqueue(message("two"));
+    writeBuffer.scheduledFlush();
+
+    assertThat(saved).containsExactly(List.of("one", "two"));
+  }
+
+  @Test
+  void failedBatchIsSavedRowByRowAndTheBadRowDeadLettered() {
+    writeBuffer = newWriteBuffer(10, 500, 3);
+    failure = batch -> contents(batch).contains("poison")
+        ? new DataIntegrityViolationException("value too long")
+        : null;
+
+    writeBuffer.enqueue(message("one"));
+    writeBuffer.enqueue(message("poison"));
+    writeBuffer.enqueue(message("three"));
+    writeBuffer.scheduledFlush();
+
+    assertThat(saved).containsExactly(List.of("one"), List.of("three"));
+    assertThat(deadLettered).containsExactly("poison");
+    assertThat(meterRegistry.counter("chat.messages.write_buffer.dead_letters").count()).isEqualTo(1);
+
+    // the poison row is gone, later messages are not held back by it
+    writeBuffer.enqueue(message("four"));
+    writeBuffer.scheduledFlush();
+    assertThat(saved).endsWith(List.of("four"));
+  }
+
+  @Test
+  void batchIsKeptWhileTheDatabaseIsUnavailable() {
+    writeBuffer = newWriteBuffer(10, 500, 3);
+    failure = batch -> new CannotCreateTransactionException("connection refused");
+
+    writeBuffer.enqueue(message("one"));
+    writeBuffer.enqueue(message("two"));
+    writeBuffer.scheduledFlush();
+    writeBuffer.scheduledFlush();
+    assertThat(writeBuffer.size()).isEqualTo(2);
+
+    failure = batch -> null;
+    writeBuffer.scheduledFlush();
+
+    assertThat(saved).containsExactly(List.of("one", "two"));
+    assertThat(deadLettered).isEmpty();
+    assertThat(writeBuffer.size()).isZero();
+  }
+
+  @Test
+  void batchIsDeadLetteredAfterMaxAttempts() {
+    writeBuffer = newWriteBuffer(10, 500, 3);
+    failure = batch -> new CannotCreateTransactionException("connection refused");
+
+    writeBuffer.enqueue(message("one"));
+    writeBuffer.enqueue(message("two"));
+    for (int i = 0; i < 3; i++) {
+      writeBuffer.scheduledFlush();
+    }
+
+    assertThat(deadLettered).containsExactly("one", "two");
+    assertThat(writeBuffer.size()).isZero();
+  }
+
+  @Test
+  void fullBufferDeadLettersInsteadOfBlocking() {
+    writeBuffer = newWriteBuffer(2, 500, 100);
+    failure = batch -> new CannotCreateTransactionException("connection refused");
+
+    writeBuffer.enqueue(message("one"));
+    writeBuffer.enqueue(message("two"));
+    writeBuffer.scheduledFlush();
+    writeBuffer.enqueue(message("three"));
+    writeBuffer.enqueue(message("four"));
+    // full: the inline flush can't make room while the database is down
+    writeBuffer.enqueue(message("five"));
+
+    assertThat(deadLettered).containsExactly("five");
+    assertThat(meterRegistry.counter("chat.messages.write_buffer.backpressure").count()).isEqualTo(1);
+    assertThat(writeBuffer.size()).isEqualTo(4);
+
+    failure = batch -> null;
+    writeBuffer.scheduledFlush();
+    assertThat(saved).containsExactly(List.of("one", "two"), List.of("three", "four"));
+  }
+
+  @Test
+  void unsavedMessagesAreDeadLetteredOnShutdown() throws InterruptedException {
+    writeBuffer = newWriteBuffer(10, 500, 100);
+    failure = batch -> new CannotCreateTransactionException("connection refused");
+
+    writeBuffer.enqueue(message("one"));
+    writeBuffer.shutdown();
+
+    verify(jsonMessageSenderBroker).sendToRoom(eq(DEAD_LETTER_TOPIC), argThat(m -> m.getContent().equals("one")));
+  }
+
+  private MessageWriteBuffer newWriteBuffer(int capacity, int batchSize, int maxAttempts) {
+    return new MessageWriteBuffer(messageService, jsonMessageSenderBroker, meterRegistry, capacity, batchSize, 10,
+        maxAttempts, 0);
+  }
+
+  private static MessageEntity message(String content) {
+    return new MessageEntity("alice", content, "CHAT", "default");
+  }
+
+  private static List<String> contents(List<MessageEntity> batch) {
+    return batch.stream().map(MessageEntity::getContent).toList();
+  }
+}
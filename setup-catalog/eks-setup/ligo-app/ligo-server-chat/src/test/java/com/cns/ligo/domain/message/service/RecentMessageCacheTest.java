@@ -0,0 +1,222 @@
+package com.cns.ligo.domain.message.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cns.ligo.domain.message.model.MessageEntity;
+import com.cns.ligo.domain.message.model.MessageView;
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.MessageType;
+import com.cns.ligo.message.kafka.JsonMessageSenderBroker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+class RecentMessageCacheTest {
+
+  private static final String ROOM = "team-a";
+
+  private final MessageService messageService = mock(MessageService.class);
+  private final MessageWriteBuffer writeBuffer = new MessageWriteBuffer(messageService,
+      mock(JsonMessageSenderBroker.class), new SimpleMeterRegistry(), 100, 500, 10, 3, 0);
+
+  @Test
+  void coldRoomIsLoadedOnceOnFirstRead() {
+    RecentMessageCache cache = newCache(10, Duration.ofMinutes(30));
+    when(messageService.getRecentMessages(ROOM, 10)).thenReturn(List.of(stored("m1", "one"), stored("m2", "two")));
+
+    assertThat(contents(cache.getRecent(ROOM, 10))).containsExactly("one", "two");
+    assertThat(contents(cache.getRecent(ROOM, 1))).containsExactly("two");
+
+    verify(messageService, times(1)).getRecentMessages(ROOM, 10);
+  }
+
+  @Test
+  void writesNeverLoadAColdRoom() {
+    RecentMessageCache cache = newCache(10, Duration.ofMinutes(30));
+    // the message is persisted by the time the room is first read
+    when(messageService.getRecentMessages(ROOM, 10)).thenReturn(List.of(stored("m1", "one")));
+
+    cache.add(ROOM, message("m1", "one"));
+    verify(messageService, never()).getRecentMessages(anyString(), anyInt());
+
+    assertThat(contents(cache.getRecent(ROOM, 10))).containsExactly("one");
+  }
+
+  @Test
+  void coldReadIncludesMessagesStillInTheWriteBuffer() {
+    RecentMessageCache cache = newCache(10, Duration.ofMinutes(30));
+    when(messageService.getRecentMessages(ROOM, 10)).thenReturn(List.of(stored("m1", "one")));
+    // delivered while the room was cold, so add() didn't keep it, and not flushed yet
+    writeBuffer.enqueue(entity("m2", "two"));
+    cache.add(ROOM, message("m2", "two"));
+    writeBuffer.enqueue(entity("x1", "elsewhere", "team-b"));
+
+    List<Message> recent = cache.getRecent(ROOM, 10);
+    assertThat(contents(recent)).containsExactly("one", "two");
+    assertThat(recent).extracting(Message::getRoomId).containsOnly(ROOM);
+  }
+
+  @Test
+  void coldReadIncludesMessagesWaitingForARetry() {
+    RecentMessageCache cache = newCache(10, Duration.ofMinutes(30));
+    when(messageService.saveMessages(anyList())).thenThrow(new CannotCreateTransactionException("connection refused"));
+    when(messageService.getRecentMessages(ROOM, 10)).thenReturn(List.of(stored("m1", "one")));
+    writeBuffer.enqueue(entity("m2", "two"));
+    writeBuffer.scheduledFlush();
+    writeBuffer.enqueue(entity("m3", "three"));
+
+    assertThat(contents(cache.getRecent(ROOM, 10))).containsExactly("one", "two", "three");
+  }
+
+  @Test
+  void appendsToACachedRoom() {
+    RecentMessageCache cache = newCache(10, Duration.ofMinutes(30));
+    when(messageService.getRecentMessages(ROOM, 10)).thenReturn(List.of(stored("m1", "one")));
+    cache.getRecent(ROOM, 10);
+
+    cache.add(ROOM, message("m2", "two"));
+    cache.add(ROOM, message("m3", "three"));
+
+    assertThat(contents(cache.getRecent(ROOM, 10))).containsExactly("one", "two", "three");
+  }
+
+  @Test
+  void keepsMessagesArrivingDuringTheLoadOnce() {
+    RecentMessageCache cache = newCache(10, Duration.ofMinutes(30));
+    when(messageService.getRecentMessages(ROOM, 10)).thenAnswer(invocation -> {
+      // delivered while the query runs: m2 was already persisted, m3 not yet
+      cache.add(ROOM, message("m2", "two"));
+      cache.add(ROOM, message("m3", "three"));
+      return List.of(stored("m1", "one"), stored("m2", "two"));
+    });
+
+    assertThat(contents(cache.getRecent(ROOM, 10))).containsExactly("one", "two", "three");
+  }
+
+  @Test
+  void redeliveredMessagesAreKeptOnce() {
+    RecentMessageCache cache = newCache(10, Duration.ofMinutes(30));
+    when(messageService.getRecentMessages(ROOM, 10)).thenReturn(List.of(stored("m1", "one")));
+    cache.getRecent(ROOM, 10);
+
+    cache.add(ROOM, message("m1", "one"));
+    cache.add(ROOM, message("m2", "two"));
+    cache.add(ROOM, message("m2", "two"));
+
+    assertThat(contents(cache.getRecent(ROOM, 10))).containsExactly("one", "two");
+  }
+
+  @Test
+  void keepsOnlyTheLatestMessagesUpToTheCacheSize() {
+    RecentMessageCache cache = newCache(3, Duration.ofMinutes(30));
+    when(messageService.getRecentMessages(ROOM, 3)).thenReturn(List.of(stored("m1", "one"), stored("m2", "two")));
+    cache.getRecent(ROOM, 3);
+
+    cache.add(ROOM, message("m3", "three"));
+    cache.add(ROOM, message("m4", "four"));
+    cache.add(ROOM, message("m5", "five"));
+
+    assertThat(contents(cache.getRecent(ROOM, 10))).containsExactly("three", "four", "five");
+    // m2 was trimmed, so its id is free again
+    cache.add(ROOM, message("m2", "two"));
+    assertThat(contents(cache.getRecent(ROOM, 10))).containsExactly("four", "five", "two");
+  }
+
+  @Test
+  void idleRoomsAreEvictedAndReloadedOnTheNextRead() {
+    RecentMessageCache cache = newCache(10, Duration.ZERO);
+    when(messageService.getRecentMessages(ROOM, 10))
+        .thenReturn(List.of(stored("m1", "one")))
+        .thenReturn(List.of(stored("m1", "one"), stored("m2", "two")));
+    cache.getRecent(ROOM, 10);
+
+    cache.evictIdleRooms();
+    // not cached any more: the write doesn't bring the room back
+    cache.add(ROOM, message("m2", "two"));
+
+    assertThat(contents(cache.getRecent(ROOM, 10))).containsExactly("one", "two");
+    verify(messageService, times(2)).getRecentMessages(ROOM, 10);
+  }
+
+  @Test
+  void activeRoomsAreNotEvicted() {
+    RecentMessageCache cache = newCache(10, Duration.ofMinutes(30));
+    when(messageService.getRecentMessages(ROOM, 10)).thenReturn(List.of(stored("m1", "one")));
+    cache.getRecent(ROOM, 10);
+
+    cache.evictIdleRooms();
+    cache.add(ROOM, message("m2", "two"));
+
+    assertThat(contents(cache.getRecent(ROOM, 10))).containsExactly("one", "two");
+    verify(messageService, times(1)).getRecentMessages(ROOM, 10);
+  }
+
+  private RecentMessageCache newCache(int capacity, Duration idleTimeout) {
+    return new RecentMessageCache(messageService, writeBuffer, new SimpleMeterRegistry(), capacity, idleTimeout,
+        List.of());
+  }
+
+  private static Message message(String id, String content) {
+    return Message.builder().id(id).type(MessageType.CHAT).sender("alice").content(content).roomId(ROOM).build();
+  }
+
+  private static MessageEntity entity(String id, String content) {
+    return entity(id, content, ROOM);
+  }
+
+  private static MessageEntity entity(String id, String content, String roomId) {
+    return new MessageEntity(id, "alice", content, "CHAT", roomId);
+  }
+
+  private static MessageView stored(String messageId, String content) {
+    return new StoredMessage(messageId, content);
+  }
+
+  private static List<String> contents(List<Message> messages) {
+    return messages.stream().map(Message::getContent).toList();
+  }
+
+  private record StoredMessage(String messageId, String content) implements MessageView {
+
+    @Override
+    public Long getId() {
+      return (long) messageId.hashCode();
+    }
+
+    @Override
+    public String getMessageId() {
+      return messageId;
+    }
+
+    @Override
+    public String getSender() {
+      return "alice";
+    }
+
+    @Override
+    public String getContent() {
+      return content;
+    }
+
+    @Override
+    public String getMessageType() {
+      return "CHAT";
+    }
+
+    @Override
+    public LocalDateTime getCreatedAt() {
+      return LocalDateTime.now();
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package com.cns.ligo.global.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.cns.ligo.domain.message.broker.Sender;
+import com.cns.ligo.domain.message.controller.MessageController;
+import com.cns.ligo.domain.message.model.MessageEntity;
+import com.cns.ligo.domain.message.service.MessageService;
+import com.cns.ligo.domain.message.service.MessageWriteBuffer;
+import com.cns.ligo.domain.message.service.RecentMessageCache;
+import com.cns.ligo.global.websocket.ShardedSubscriptionRegistry;
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.MessageType;
+import com.cns.ligo.message.Topics;
+import com.cns.ligo.message.kafka.JsonMessageSenderBroker;
+import com.cns.ligo.message.kafka.MessageDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.assertj.AssertableApplicationContext;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+// The batch listener against an embedded broker: a batch that can't be persisted is neither
+// committed nor lost.
+@EmbeddedKafka(partitions = 1, topics = {Topics.MESSAGING, "messaging-dlt"})
+class KafkaConsumerConfigTest {
+
+  private static final Duration WAIT = Duration.ofSeconds(30);
+
+  private final MessageService messageService = mock(MessageService.class);
+  // contents of every successful saveMessages call
+  private final List<List<String>> saved = new CopyOnWriteArrayList<>();
+  private volatile Function<List<MessageEntity>, RuntimeException> failure = batch -> null;
+
+  KafkaConsumerConfigTest() {
+    when(messageService.saveMessages(anyList())).thenAnswer(invocation -> {
+      List<MessageEntity> batch = invocation.getArgument(0);
+      RuntimeException e = failure.apply(batch);
+      if (e != null) {
+        throw e;
+      }
+      saved.add(batch.stream().map(MessageEntity::getContent).toList());
+      return batch;
+    });
+  }
+
+  @Test
+  void failingBatchIsRedeliveredUntilItIsPersisted(EmbeddedKafkaBroker embeddedKafka) {
+    AtomicInteger failures = new AtomicInteger();
+    List<Long> committedWhileFailing = new CopyOnWriteArrayList<>();
+    failure = batch -> {
+      if (failures.getAndIncrement() >= 4) {
+        return null;
+      }
+      committedWhileFailing.add(committedOffset(embeddedKafka));
+      return new CannotCreateTransactionException("connection refused");
+    };
+
+    runBatchListener(embeddedKafka, (template, committed) -> {
+      long start = committed.getAsLong();
+      send(template, "one", "two", "three");
+
+      awaitCommitted(committed, start + 3);
+      // nothing was committed while the database was down
+      assertThat(committedWhileFailing).hasSize(4).containsOnly(start);
+      assertThat(saved.stream().flatMap(List::stream)).containsExactly("one", "two", "three");
+    });
+    assertThat(deadLetters(embeddedKafka)).doesNotContain("one", "two", "three");
+  }
+
+  @Test
+  void recordThatKeepsFailingIsDeadLetteredAndTheRestPersisted(EmbeddedKafkaBroker embeddedKafka) {
+    failure = batch -> batch.stream().anyMatch(message -> message.getContent().equals("poison"))
+        ? new IllegalArgumentException("value too long")
+        : null;
+
+    runBatchListener(embeddedKafka, (template, committed) -> {
+      long start = committed.getAsLong();
+      send(template, "one", "poison", "three");
+
+      awaitCommitted(committed, start + 3);
+      assertThat(saved.stream().flatMap(List::stream)).containsExactly("one", "three");
+    });
+    assertThat(deadLetters(embeddedKafka)).containsExactly("poison");
+  }
+
+  // Runs MessageController.consumeBatch in a container of batchKafkaListenerContainerFactory
+  private void runBatchListener(EmbeddedKafkaBroker embeddedKafka, BatchTest test) {
+    new ApplicationContextRunner()
+        .withBean(ObjectMapper.class)
+        .withUserConfiguration(KafkaProducerConfig.class, KafkaConsumerConfig.class)
+        .withPropertyValues(
+            "spring.kafka.consumer.bootstrap-servers=" + embeddedKafka.getBrokersAsString(),
+            "spring.kafka.producer.bootstrap-servers=" + embeddedKafka.getBrokersAsString(),
+            "spring.chat.kafka.batch.max-attempts=3",
+            "spring.chat.kafka.batch.retry-interval-ms=100")
+        .run(context -> runContainer(context, embeddedKafka, test));
+  }
+
+  @SuppressWarnings("unchecked")
+  private void runContainer(AssertableApplicationContext context, EmbeddedKafkaBroker embeddedKafka,
+      BatchTest test) {
+    ConcurrentKafkaListenerContainerFactory<String, Message> factory =
+        context.getBean("batchKafkaListenerContainerFactory", ConcurrentKafkaListenerContainerFactory.class);
+    KafkaTemplate<String, Message> template = context.getBean("kafkaTemplate", KafkaTemplate.class);
+    MessageController controller = new MessageController(mock(Sender.class),
+        mock(SimpMessageSendingOperations.class), mock(JsonMessageSenderBroker.class), messageService,
+        mock(MessageWriteBuffer.class), mock(RecentMessageCache.class), mock(ChatCluster.class),
+        mock(ShardedSubscriptionRegistry.class));
+
+    ConcurrentMessageListenerContainer<String, Message> container = factory.createContainer(Topics.MESSAGING);
+    container.setupMessageListener((BatchMessageListener<String, Message>) controller::consumeBatch);
+    container.start();
+    try {
+      ContainerTestUtils.waitForAssignment(container, embeddedKafka.getPartitionsPerTopic());
+      test.run(template, () -> committedOffset(embeddedKafka));
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    } finally {
+      container.stop();
+    }
+  }
+
+  // offset committed by the "chat" group, 0 before its first commit
+  private static long committedOffset(EmbeddedKafkaBroker embeddedKafka) {
+    try {
+      OffsetAndMetadata offset = KafkaTestUtils.getCurrentOffset(embeddedKafka.getBrokersAsString(), "chat",
+          Topics.MESSAGING, 0);
+      return offset != null ? offset.offset() : 0;
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void send(KafkaTemplate<String, Message> template, String... contents) {
+    for (String content : contents) {
+      template.send(Topics.MESSAGING, "default", Message.builder()
+          .type(MessageType.CHAT).sender("alice").content(content).roomId("default").build());
+    }
+    template.flush();
+  }
+
+  private static void awaitCommitted(LongSupplier committed, long expected) throws InterruptedException {
+    long deadline = System.nanoTime() + WAIT.toNanos();
+    while (committed.getAsLong() < expected && System.nanoTime() - deadline < 0) {
+      Thread.sleep(100);
+    }
+    assertThat(committed.getAsLong()).isEqualTo(expected);
+  }
+
+  private static List<String> deadLetters(EmbeddedKafkaBroker embeddedKafka) {
+    Map<String, Object> props = KafkaTestUtils.consumerProps("dead-letters", "false", embeddedKafka);
+    List<String> contents = new ArrayList<>();
+    try (Consumer<String, Message> consumer = new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+        new MessageDeserializer(new ObjectMapper())).createConsumer()) {
+      embeddedKafka.consumeFromAnEmbeddedTopic(consumer, "messaging-dlt");
+      KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(2))
+          .forEach(record -> contents.add(record.value().getContent()));
+    }
+    return contents;
+  }
+
+  private interface BatchTest {
+
+    void run(KafkaTemplate<String, Message> template, LongSupplier committed) throws Exception;
+  }
+}
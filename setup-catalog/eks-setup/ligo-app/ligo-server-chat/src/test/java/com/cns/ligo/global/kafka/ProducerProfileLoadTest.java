@@ -0,0 +1,137 @@
+package com.cns.ligo.global.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.MessageType;
+import com.cns.ligo.message.kafka.ProducerProfile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+// Chat traffic (many senders, short lines keyed by room) sent with each ProducerProfile
+// to an embedded broker. Reports records/s, payload and wire bytes/s and send latency
+// (send() until the broker acknowledged the record).
+@Tag("load")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProducerProfileLoadTest {
+
+  private static final int RECORDS = 200_000;
+  private static final int SENDERS = 64;
+  private static final int ROOMS = 100;
+  private static final int PARTITIONS = 6;
+
+  private EmbeddedKafkaKraftBroker broker;
+
+  @BeforeAll
+  void startBroker() {
+    broker = new EmbeddedKafkaKraftBroker(1, PARTITIONS);
+    broker.afterPropertiesSet();
+  }
+
+  @AfterAll
+  void stopBroker() {
+    broker.destroy();
+  }
+
+  @ParameterizedTest
+  @EnumSource(ProducerProfile.class)
+  void sendChatTraffic(ProducerProfile profile) throws InterruptedException {
+    String topic = "messaging-" + profile.name().toLowerCase();
+    broker.addTopics(topic);
+
+    Map<String, Object> configProps = new HashMap<>(profile.getProperties());
+    configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+    JsonSerializer<Message> valueSerializer = new JsonSerializer<>(new ObjectMapper());
+    valueSerializer.setAddTypeInfo(false);
+
+    long[] latencies = new long[RECORDS];
+    AtomicInteger next = new AtomicInteger();
+    AtomicLong failures = new AtomicLong();
+    CountDownLatch acked = new CountDownLatch(RECORDS);
+    long wireBytes;
+    long start = System.nanoTime();
+    try (KafkaProducer<String, Message> producer =
+        new KafkaProducer<>(configProps, new StringSerializer(), valueSerializer)) {
+      List<Thread> senders = new ArrayList<>();
+      for (int i = 0; i < SENDERS; i++) {
+        senders.add(Thread.ofVirtual().start(() -> {
+          for (int n = next.getAndIncrement(); n < RECORDS; n = next.getAndIncrement()) {
+            int index = n;
+            String roomId = "room-" + (n % ROOMS);
+            long sentAt = System.nanoTime();
+            producer.send(new ProducerRecord<>(topic, roomId, chatLine(roomId, n)), (metadata, exception) -> {
+              latencies[index] = System.nanoTime() - sentAt;
+              if (exception != null) {
+                failures.incrementAndGet();
+              }
+              acked.countDown();
+            });
+          }
+        }));
+      }
+      for (Thread sender : senders) {
+        sender.join();
+      }
+      assertThat(acked.await(2, TimeUnit.MINUTES)).isTrue();
+      wireBytes = (long) metric(producer.metrics(), "outgoing-byte-total");
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    assertThat(failures.get()).isZero();
+    long payloadBytes = (long) RECORDS * payloadSize(valueSerializer, topic);
+    Arrays.sort(latencies);
+    System.out.printf("%-10s %,9.0f records/s  payload %6.2f MB/s  wire %6.2f MB/s"
+            + "  p50=%.2fms p99=%.2fms max=%.2fms%n",
+        profile.name().toLowerCase(), RECORDS / seconds, payloadBytes / seconds / 1e6, wireBytes / seconds / 1e6,
+        millis(latencies[RECORDS / 2]), millis(latencies[(int) (RECORDS * 0.99)]), millis(latencies[RECORDS - 1]));
+  }
+
+  private static Message chatLine(String roomId, int n) {
+    return Message.builder()
+        .sender("user-" + (n % 1_000))
+        .content("Hẹn gặp bạn ở phòng họp tầng 3 lúc 3 giờ chiều nhé, message " + n)
+        .type(MessageType.CHAT)
+        .translationMode("none")
+        .sessionId("3f2a9c1e-5d7b-4c8e-9a1f-" + String.format("%012d", n % 10_000))
+        .roomId(roomId)
+        .build();
+  }
+
+  private static int payloadSize(JsonSerializer<Message> serializer, String topic) {
+    return serializer.serialize(topic, chatLine("room-0", 0)).length;
+  }
+
+  private static double metric(Map<MetricName, ? extends Metric> metrics, String name) {
+    return metrics.entrySet().stream()
+        .filter(entry -> entry.getKey().group().equals("producer-metrics") && entry.getKey().name().equals(name))
+        .mapToDouble(entry -> ((Number) entry.getValue().metricValue()).doubleValue())
+        .findFirst()
+        .orElse(0);
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1e6;
+  }
+}
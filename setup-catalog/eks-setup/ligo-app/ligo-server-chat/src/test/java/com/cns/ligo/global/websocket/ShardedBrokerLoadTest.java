@@ -0,0 +1,100 @@
+package com.cns.ligo.global.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+// Fan-out latency of the sharded broker with 10k sessions on one destination.
+// Latency is measured from publish until the last subscriber's message is handled by the outbound channel.
+@Tag("load")
+class ShardedBrokerLoadTest {
+
+  private static final int SESSIONS = 10_000;
+  private static final int MESSAGES = 500;
+  private static final String DESTINATION = "/topic/public";
+
+  @Test
+  void fanOutToTenThousandSessions() throws InterruptedException {
+    long[] publishedAt = new long[MESSAGES];
+    long[] latencies = new long[MESSAGES];
+    AtomicIntegerArray remaining = new AtomicIntegerArray(MESSAGES);
+    CountDownLatch done = new CountDownLatch(MESSAGES);
+
+    // thread pool sized like Spring's default clientOutboundChannel
+    ExecutorService outboundThreads = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+    ExecutorSubscribableChannel outbound = new ExecutorSubscribableChannel(outboundThreads);
+    outbound.subscribe(message -> {
+      if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+        return;
+      }
+      int index = ByteBuffer.wrap((byte[]) message.getPayload()).getInt();
+      if (remaining.decrementAndGet(index) == 0) {
+        latencies[index] = System.nanoTime() - publishedAt[index];
+        done.countDown();
+      }
+    });
+
+    ShardedSubscriptionRegistry registry = new ShardedSubscriptionRegistry(0);
+    ShardedBrokerMessageHandler broker = ShardedBrokerMessageHandler.create(new ExecutorSubscribableChannel(),
+        outbound, new ExecutorSubscribableChannel(), List.of("/topic", "/queue"), registry);
+    broker.start();
+    for (int i = 0; i < SESSIONS; i++) {
+      broker.handleMessage(connect("session-" + i));
+      broker.handleMessage(subscribe("session-" + i));
+    }
+    assertThat(registry.getSubscriberCount(DESTINATION)).isEqualTo(SESSIONS);
+
+    for (int i = 0; i < MESSAGES; i++) {
+      remaining.set(i, SESSIONS);
+      publishedAt[i] = System.nanoTime();
+      broker.handleMessage(publish(i));
+    }
+
+    assertThat(done.await(2, TimeUnit.MINUTES)).isTrue();
+    broker.stop();
+    outboundThreads.shutdown();
+
+    Arrays.sort(latencies);
+    System.out.printf("fan-out to %d sessions on %d shards: p50=%.2fms p99=%.2fms max=%.2fms%n",
+        SESSIONS, registry.getShardCount(),
+        millis(latencies[MESSAGES / 2]), millis(latencies[MESSAGES * 99 / 100]), millis(latencies[MESSAGES - 1]));
+  }
+
+  private static Message<byte[]> connect(String sessionId) {
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+    accessor.setSessionId(sessionId);
+    return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+  }
+
+  private static Message<byte[]> subscribe(String sessionId) {
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+    accessor.setSessionId(sessionId);
+    accessor.setSubscriptionId("sub-0");
+    accessor.setDestination(DESTINATION);
+    return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+  }
+
+  private static Message<byte[]> publish(int index) {
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+    accessor.setDestination(DESTINATION);
+    return MessageBuilder.createMessage(ByteBuffer.allocate(4).putInt(index).array(), accessor.getMessageHeaders());
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+}
@@ -0,0 +1,101 @@
+package com.cns.ligo.global.websocket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+class ShardedBrokerMessageHandlerTest {
+
+  private static final String DESTINATION = "/topic/public";
+
+  private final List<Message<?>> delivered = new CopyOnWriteArrayList<>();
+  // multi-threaded like the clientOutboundChannel Spring configures
+  private final ExecutorService outboundThreads = Executors.newFixedThreadPool(4);
+  private final ExecutorSubscribableChannel outbound = new ExecutorSubscribableChannel(outboundThreads);
+  private final ShardedSubscriptionRegistry registry = new ShardedSubscriptionRegistry(4);
+  private final ShardedBrokerMessageHandler broker = ShardedBrokerMessageHandler.create(
+      new ExecutorSubscribableChannel(), outbound, new ExecutorSubscribableChannel(), List.of("/topic"), registry);
+
+  ShardedBrokerMessageHandlerTest() {
+    outbound.subscribe(message -> {
+      if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE) {
+        delivered.add(message);
+      }
+    });
+  }
+
+  @AfterEach
+  void tearDown() {
+    broker.stop();
+    outboundThreads.shutdown();
+  }
+
+  @Test
+  void everySubscriberGetsTheMessageOnce() throws InterruptedException {
+    broker.start();
+    List<String> sessionIds = IntStream.range(0, 20).mapToObj(i -> "session-" + i).toList();
+    sessionIds.forEach(this::connectAndSubscribe);
+
+    broker.handleMessage(publish("hello"));
+
+    awaitDelivered(sessionIds.size());
+    assertThat(delivered).extracting(message -> SimpMessageHeaderAccessor.getSessionId(message.getHeaders()))
+        .containsExactlyInAnyOrderElementsOf(sessionIds);
+    assertThat(delivered).extracting(message -> (String) message.getPayload()).containsOnly("hello");
+  }
+
+  @Test
+  void messagesOfOneSessionStayInOrder() throws InterruptedException {
+    broker.start();
+    connectAndSubscribe("alice");
+
+    List<String> sent = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      sent.add("message-" + i);
+      broker.handleMessage(publish("message-" + i));
+    }
+
+    awaitDelivered(sent.size());
+    assertThat(delivered).extracting(message -> (String) message.getPayload()).containsExactlyElementsOf(sent);
+  }
+
+  private void connectAndSubscribe(String sessionId) {
+    SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+    connect.setSessionId(sessionId);
+    broker.handleMessage(MessageBuilder.createMessage("", connect.getMessageHeaders()));
+
+    SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+    subscribe.setSessionId(sessionId);
+    subscribe.setSubscriptionId("sub-0");
+    subscribe.setDestination(DESTINATION);
+    broker.handleMessage(MessageBuilder.createMessage("", subscribe.getMessageHeaders()));
+  }
+
+  private static Message<String> publish(String payload) {
+    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+    accessor.setDestination(DESTINATION);
+    return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+  }
+
+  private void awaitDelivered(int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (delivered.size() < count && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    // and nothing more arrives
+    Thread.sleep(100);
+    assertThat(delivered).hasSize(count);
+  }
+}
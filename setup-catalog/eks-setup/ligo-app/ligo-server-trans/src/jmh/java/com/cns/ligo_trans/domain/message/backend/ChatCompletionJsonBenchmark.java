@@ -0,0 +1,76 @@
+package com.cns.ligo_trans.domain.message.backend;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Building a chat-completions request and reading the answer back.
+// formatRequest is the original String.format body (no escaping), orgJson* the org.json DOM path,
+// streaming* the Jackson generator / parser path of ChatCompletionJson.
+// Run with -prof gc to compare allocation per operation.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChatCompletionJsonBenchmark {
+
+  private static final String MODEL = "llama-3.3-70b-versatile";
+  private static final String PROMPT = "You are a helpful assistant that translates the text to Vietnamese."
+      + " You will only reply with the translation text and nothing else.. The text is:"
+      + " See you at the meeting room on the 3rd floor at 3pm, don't be late!";
+
+  private final ChatCompletionJson json = new ChatCompletionJson();
+  private byte[] response;
+
+  @Setup
+  public void setUp() {
+    response = ("{\"id\":\"chatcmpl-8f3a\",\"object\":\"chat.completion\",\"created\":1735689600,"
+        + "\"model\":\"" + MODEL + "\",\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\","
+        + "\"content\":\"Hẹn gặp bạn ở phòng họp tầng 3 lúc 3 giờ chiều, đừng đến muộn nhé!\"},"
+        + "\"logprobs\":null,\"finish_reason\":\"stop\"}],\"usage\":{\"queue_time\":0.02,\"prompt_tokens\":58,"
+        + "\"prompt_time\":0.004,\"completion_tokens\":24,\"completion_time\":0.08,\"total_tokens\":82,"
+        + "\"total_time\":0.084},\"system_fingerprint\":\"fp_3f3b593e33\",\"x_groq\":{\"id\":\"req_01\"}}")
+        .getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public byte[] formatRequest() {
+    return String.format(
+        "{ \"model\": \"%s\", \"messages\": [{ \"role\": \"user\", \"content\": \"%s\" }] }", MODEL, PROMPT)
+        .getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public byte[] orgJsonRequest() {
+    return new JSONObject()
+        .put("model", MODEL)
+        .put("messages", new JSONArray().put(new JSONObject().put("role", "user").put("content", PROMPT)))
+        .toString()
+        .getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public byte[] streamingRequest() {
+    return json.writeRequest(MODEL, PROMPT, false);
+  }
+
+  @Benchmark
+  public String orgJsonResponse() {
+    return new JSONObject(new String(response, StandardCharsets.UTF_8)).getJSONArray("choices")
+        .getJSONObject(0)
+        .getJSONObject("message")
+        .getString("content");
+  }
+
+  @Benchmark
+  public String streamingResponse() {
+    return json.readMessageContent(response);
+  }
+}
@@ -0,0 +1,143 @@
+package com.cns.ligo_trans.domain.message.backend;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Chat-completions JSON with the Jackson streaming API: request bodies are written token by token
+// (user text is escaped by the generator) and responses are read by skipping straight to
+// choices[0].message.content / choices[0].delta.content, without building a DOM.
+// The generator and parser buffers come from a shared pool rather than the default thread-local one,
+// which would allocate new buffers for every virtual thread.
+public class ChatCompletionJson {
+
+  private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+      .recyclerPool(JsonRecyclerPools.sharedConcurrentDequePool())
+      .build();
+
+  // {"model": model, "messages": [{"role": "user", "content": prompt}], "stream": true?}
+  public byte[] writeRequest(String model, String prompt, boolean stream) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(128 + prompt.length() * 2);
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+      generator.writeStartObject();
+      generator.writeStringField("model", model);
+      generator.writeArrayFieldStart("messages");
+      generator.writeStartObject();
+      generator.writeStringField("role", "user");
+      generator.writeStringField("content", prompt);
+      generator.writeEndObject();
+      generator.writeEndArray();
+      if (stream) {
+        generator.writeBooleanField("stream", true);
+      }
+      generator.writeEndObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  public String writeStringArray(List<String> values) {
+    StringWriter out = new StringWriter();
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+      generator.writeStartArray();
+      for (String value : values) {
+        generator.writeString(value);
+      }
+      generator.writeEndArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toString();
+  }
+
+  // choices[0].message.content of a completion response
+  public String readMessageContent(byte[] response) {
+    String content = readChoiceContent(response, "message");
+    if (content == null) {
+      throw new IllegalStateException("Completion response has no choices[0].message.content");
+    }
+    return content;
+  }
+
+  // choices[0].delta.content of one streamed event, "" when the event carries no text
+  public String readDeltaContent(String event) {
+    try (JsonParser parser = JSON_FACTORY.createParser(event)) {
+      String content = readChoiceContent(parser, "delta");
+      return content != null ? content : "";
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public List<String> readStringArray(String json) {
+    try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new IllegalStateException("Expected a JSON array");
+      }
+      List<String> values = new ArrayList<>();
+      JsonToken token;
+      while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+        if (token != JsonToken.VALUE_STRING) {
+          throw new IllegalStateException("Expected a string but got " + token);
+        }
+        values.add(parser.getText());
+      }
+      return values;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private String readChoiceContent(byte[] response, String container) {
+    try (JsonParser parser = JSON_FACTORY.createParser(response)) {
+      return readChoiceContent(parser, container);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static String readChoiceContent(JsonParser parser, String container) throws IOException {
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      return null;
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if (field.equals("choices") && value == JsonToken.START_ARRAY) {
+        return parser.nextToken() == JsonToken.START_OBJECT ? readContent(parser, container) : null;
+      }
+      parser.skipChildren();
+    }
+    return null;
+  }
+
+  // inside a choice object: container.content
+  private static String readContent(JsonParser parser, String container) throws IOException {
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if (field.equals(container) && value == JsonToken.START_OBJECT) {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String innerField = parser.currentName();
+          JsonToken innerValue = parser.nextToken();
+          if (innerField.equals("content") && innerValue == JsonToken.VALUE_STRING) {
+            return parser.getText();
+          }
+          parser.skipChildren();
+        }
+        return null;
+      }
+      parser.skipChildren();
+    }
+    return null;
+  }
+}
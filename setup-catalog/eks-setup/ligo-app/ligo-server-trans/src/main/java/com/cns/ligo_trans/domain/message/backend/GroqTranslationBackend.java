@@ -0,0 +1,129 @@
+package com.cns.ligo_trans.domain.message.backend;
+
+import com.cns.ligo_trans.domain.message.service.TranslationException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+
+// Groq chat-completions API (OpenAI compatible)
+@Component
+public class GroqTranslationBackend implements TranslationBackend {
+
+  public static final String NAME = "groq";
+
+  // pooled client with the API key preset (see GroqClientConfig)
+  private final RestClient groqRestClient;
+  private final String groqApiUrl;
+  private final ChatCompletionJson json = new ChatCompletionJson();
+
+  public GroqTranslationBackend(RestClient groqRestClient, @Value("${spring.groq.api-url}") String groqApiUrl) {
+    this.groqRestClient = groqRestClient;
+    this.groqApiUrl = groqApiUrl;
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public String translate(String model, String language, String text) {
+    return complete(model, prompt("translates the text to " + language
+        + ". You will only reply with the translation text and nothing else.", text));
+  }
+
+  // one prompt for several texts to the same language; the model answers with a JSON array
+  @Override
+  public List<String> translateBatch(String model, String language, List<String> texts) {
+    String prompt = "You are a helpful assistant that translates each text of the following JSON array to "
+        + language + ". You will only reply with a JSON array of the translations,"
+        + " in the same order and with the same number of elements, and nothing else."
+        + " The texts are: " + json.writeStringArray(texts);
+    String content = complete(model, prompt).strip();
+    // tolerate a markdown code fence around the array
+    int start = content.indexOf('[');
+    int end = content.lastIndexOf(']');
+    if (start < 0 || end < start) {
+      throw new IllegalStateException("Batch translation is not a JSON array");
+    }
+    return json.readStringArray(content.substring(start, end + 1));
+  }
+
+  @Override
+  public String checkGrammar(String model, String text) {
+    return complete(model, prompt("checks grammar for the text. You will only reply with the corrected text"
+        + " in the text language and nothing else.", text));
+  }
+
+  @Override
+  public String ask(String model, String question) {
+    return complete(model, prompt("answers for the following text.", question));
+  }
+
+  // Reads the server-sent events of a chat-completions stream:
+  // "data: {choices:[{delta:{content}}]}" lines until "data: [DONE]"
+  @Override
+  public String askStreaming(String model, String question, Consumer<String> onChunk) {
+    byte[] requestBody = json.writeRequest(model, prompt("answers for the following text.", question), true);
+    return groqRestClient.post()
+        .uri(groqApiUrl)
+        .contentType(MediaType.APPLICATION_JSON)
+        .accept(MediaType.TEXT_EVENT_STREAM)
+        .body(requestBody)
+        .exchange((request, response) -> {
+          if (response.getStatusCode().isError()) {
+            throw new RestClientResponseException("Streaming completion failed", response.getStatusCode(),
+                response.getStatusText(), response.getHeaders(), null, null);
+          }
+          StringBuilder answer = new StringBuilder();
+          try (BufferedReader reader = new BufferedReader(
+              new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+              if (!line.startsWith("data:")) {
+                continue;
+              }
+              String data = line.substring("data:".length()).trim();
+              if (data.equals("[DONE]")) {
+                break;
+              }
+              String piece = json.readDeltaContent(data);
+              if (!piece.isEmpty()) {
+                answer.append(piece);
+                onChunk.accept(piece);
+              }
+            }
+          } catch (IOException e) {
+            // retrying would repeat the chunks already sent
+            if (!answer.isEmpty()) {
+              throw new TranslationException("Completion stream was interrupted", e, false);
+            }
+            throw e;
+          }
+          return answer.toString();
+        });
+  }
+
+  private String complete(String model, String prompt) {
+    byte[] responseBody = groqRestClient.post()
+        .uri(groqApiUrl)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(json.writeRequest(model, prompt, false))
+        .retrieve()
+        .body(byte[].class);
+
+    return json.readMessageContent(responseBody);
+  }
+
+  private static String prompt(String assistantRole, String text) {
+    return "You are a helpful assistant that " + assistantRole + ". The text is: " + text;
+  }
+}
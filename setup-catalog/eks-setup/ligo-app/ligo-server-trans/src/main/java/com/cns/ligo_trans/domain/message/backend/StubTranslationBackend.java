@@ -0,0 +1,76 @@
+package com.cns.ligo_trans.domain.message.backend;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// In-process backend with deterministic answers and a fixed latency, no network involved.
+// Route modes to "stub" to benchmark the service at full throughput or run it offline.
+@Component
+public class StubTranslationBackend implements TranslationBackend {
+
+  public static final String NAME = "stub";
+
+  private final long latencyMillis;
+
+  public StubTranslationBackend(@Value("${spring.trans.backend.stub.latency:0ms}") Duration latency) {
+    this.latencyMillis = latency.toMillis();
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public String translate(String model, String language, String text) {
+    simulateLatency();
+    return "[" + language + "] " + text;
+  }
+
+  @Override
+  public List<String> translateBatch(String model, String language, List<String> texts) {
+    simulateLatency();
+    return texts.stream().map(text -> "[" + language + "] " + text).toList();
+  }
+
+  @Override
+  public String checkGrammar(String model, String text) {
+    simulateLatency();
+    return text;
+  }
+
+  @Override
+  public String ask(String model, String question) {
+    simulateLatency();
+    return answer(question);
+  }
+
+  @Override
+  public String askStreaming(String model, String question, Consumer<String> onChunk) {
+    simulateLatency();
+    String answer = answer(question);
+    // word by word, keeping the separators so the chunks add up to the answer
+    for (String piece : answer.split("(?<= )")) {
+      onChunk.accept(piece);
+    }
+    return answer;
+  }
+
+  private static String answer(String question) {
+    return "You asked: " + question;
+  }
+
+  private void simulateLatency() {
+    if (latencyMillis <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(latencyMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
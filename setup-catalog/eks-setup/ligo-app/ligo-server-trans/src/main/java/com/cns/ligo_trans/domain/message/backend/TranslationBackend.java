@@ -0,0 +1,24 @@
+package com.cns.ligo_trans.domain.message.backend;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+// A model provider the service can send its requests to (see TranslationBackendRouter).
+// Implementations are Spring beans told apart by getName(); model is whatever the provider calls its models.
+// Failures are thrown as is (e.g. RestClientResponseException), UpstreamGuard decides what is retried.
+public interface TranslationBackend {
+
+  String getName();
+
+  String translate(String model, String language, String text);
+
+  // one result per text, in the same order
+  List<String> translateBatch(String model, String language, List<String> texts);
+
+  String checkGrammar(String model, String text);
+
+  String ask(String model, String question);
+
+  // onChunk receives each piece of the answer as it arrives, the full answer is returned at the end
+  String askStreaming(String model, String question, Consumer<String> onChunk);
+}
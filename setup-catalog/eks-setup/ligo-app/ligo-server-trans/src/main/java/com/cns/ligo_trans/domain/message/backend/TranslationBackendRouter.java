@@ -0,0 +1,110 @@
+package com.cns.ligo_trans.domain.message.backend;
+
+import com.cns.ligo_trans.global.kafka.Workload;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Picks the backend and model for each workload, e.g. a small fast model for grammar checks
+// and a larger one for translations (spring.trans.backend.<workload>.{name,model}).
+// Every call is timed per backend, model and workload.
+@Component
+public class TranslationBackendRouter {
+
+  private static final Logger logger = LoggerFactory.getLogger(TranslationBackendRouter.class);
+
+  private final Map<Workload, Route> routes = new EnumMap<>(Workload.class);
+
+  public TranslationBackendRouter(List<TranslationBackend> backends, MeterRegistry meterRegistry,
+      @Value("${spring.trans.backend.translate.name:groq}") String translateBackend,
+      @Value("${spring.trans.backend.translate.model:llama-3.3-70b-versatile}") String translateModel,
+      @Value("${spring.trans.backend.check-grammar.name:groq}") String grammarBackend,
+      @Value("${spring.trans.backend.check-grammar.model:llama-3.3-70b-versatile}") String grammarModel,
+      @Value("${spring.trans.backend.ask-ligobot.name:groq}") String askLigoBotBackend,
+      @Value("${spring.trans.backend.ask-ligobot.model:llama-3.3-70b-versatile}") String askLigoBotModel) {
+    Map<String, TranslationBackend> byName = backends.stream()
+        .collect(Collectors.toMap(TranslationBackend::getName, Function.identity()));
+    routes.put(Workload.TRANSLATE,
+        route(byName, Workload.TRANSLATE, translateBackend, translateModel, meterRegistry));
+    routes.put(Workload.CHECK_GRAMMAR,
+        route(byName, Workload.CHECK_GRAMMAR, grammarBackend, grammarModel, meterRegistry));
+    routes.put(Workload.ASK_LIGOBOT,
+        route(byName, Workload.ASK_LIGOBOT, askLigoBotBackend, askLigoBotModel, meterRegistry));
+  }
+
+  public String translate(String language, String text) {
+    Route route = routes.get(Workload.TRANSLATE);
+    return route.time(() -> route.backend.translate(route.model, language, text));
+  }
+
+  public List<String> translateBatch(String language, List<String> texts) {
+    Route route = routes.get(Workload.TRANSLATE);
+    return route.time(() -> route.backend.translateBatch(route.model, language, texts));
+  }
+
+  public String checkGrammar(String text) {
+    Route route = routes.get(Workload.CHECK_GRAMMAR);
+    return route.time(() -> route.backend.checkGrammar(route.model, text));
+  }
+
+  public String ask(String question) {
+    Route route = routes.get(Workload.ASK_LIGOBOT);
+    return route.time(() -> route.backend.ask(route.model, question));
+  }
+
+  public String askStreaming(String question, Consumer<String> onChunk) {
+    Route route = routes.get(Workload.ASK_LIGOBOT);
+    return route.time(() -> route.backend.askStreaming(route.model, question, onChunk));
+  }
+
+  private static Route route(Map<String, TranslationBackend> backends, Workload workload, String name,
+      String model, MeterRegistry meterRegistry) {
+    TranslationBackend backend = backends.get(name);
+    if (backend == null) {
+      throw new IllegalArgumentException("Unknown translation backend '" + name + "' for " + workload.getTag()
+          + ", available: " + backends.keySet());
+    }
+    logger.info("Routing {} requests to {} ({})", workload.getTag(), name, model);
+    return new Route(backend, model,
+        latencyTimer(workload, name, model, "success", meterRegistry),
+        latencyTimer(workload, name, model, "error", meterRegistry));
+  }
+
+  private static Timer latencyTimer(Workload workload, String backend, String model, String outcome,
+      MeterRegistry meterRegistry) {
+    return Timer.builder("trans.backend.latency")
+        .description("Latency of calls to the translation backend")
+        .tag("backend", backend)
+        .tag("model", model)
+        .tag("workload", workload.getTag())
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  private record Route(TranslationBackend backend, String model, Timer success, Timer error) {
+
+    <T> T time(Supplier<T> call) {
+      long start = System.nanoTime();
+      try {
+        T result = call.get();
+        success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+      } catch (RuntimeException e) {
+        error.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        throw e;
+      }
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.cns.ligo_trans.domain.message.controller;
+
+import com.cns.ligo_trans.global.kafka.DeadLetterReplayer;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+// Operator endpoint: POST /api/dead-letters/translate-request/replay?limit=100
+// It has no authentication and re-injects up to 10,000 requests into the LLM pipeline per call, so it
+// answers 404 unless spring.trans.dead-letters.replay.enabled is set (off by default).
+@RestController
+public class DeadLetterController {
+
+  private static final int MAX_LIMIT = 10_000;
+
+  private final DeadLetterReplayer deadLetterReplayer;
+  private final boolean enabled;
+
+  public DeadLetterController(DeadLetterReplayer deadLetterReplayer,
+      @Value("${spring.trans.dead-letters.replay.enabled:false}") boolean enabled) {
+    this.deadLetterReplayer = deadLetterReplayer;
+    this.enabled = enabled;
+  }
+
+  @PostMapping("/api/dead-letters/{topic}/replay")
+  public ResponseEntity<Map<String, Object>> replay(@PathVariable String topic,
+      @RequestParam(defaultValue = "100") int limit) {
+    if (!enabled) {
+      return ResponseEntity.notFound().build();
+    }
+    if (!deadLetterReplayer.isReplayable(topic) || limit < 1 || limit > MAX_LIMIT) {
+      return ResponseEntity.badRequest().build();
+    }
+    int replayed = deadLetterReplayer.replay(topic, limit);
+    return ResponseEntity.ok(Map.of("topic", topic, "replayed", replayed));
+  }
+}
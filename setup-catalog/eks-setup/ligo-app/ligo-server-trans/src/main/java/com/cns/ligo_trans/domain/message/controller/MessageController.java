@@ -1,78 +1,218 @@
 package com.cns.ligo_trans.domain.message.controller;
 
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.MessageType;
+import com.cns.ligo.message.Topics;
+import com.cns.ligo.message.kafka.JsonMessageSenderBroker;
+import com.cns.ligo_trans.domain.message.service.TranslationException;
 import com.cns.ligo_trans.domain.message.service.TranslationService;
-import com.cns.ligo_trans.domain.message.model.Message;
-import com.cns.ligo_trans.domain.message.broker.JsonMessageSenderBroker;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.cns.ligo_trans.global.kafka.AsyncRecordProcessor;
+import com.cns.ligo_trans.global.kafka.Workload;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 
 @Service
 public class MessageController {
 
   private static final Logger logger = LoggerFactory.getLogger(MessageController.class);
+  private static final String BUSY_REPLY = "LigoBot is busy right now, please try again in a moment.";
 
   private final TranslationService translationService;
   private final JsonMessageSenderBroker jsonMessageSenderBroker;
+  private final AsyncRecordProcessor asyncRecordProcessor;
+
+  private final boolean streamingEnabled;
+  private final int streamChunkMinChars;
+  private final long streamChunkIntervalNanos;
 
   public MessageController(TranslationService translationService,
-      JsonMessageSenderBroker jsonMessageSenderBroker) {
+      JsonMessageSenderBroker jsonMessageSenderBroker,
+      AsyncRecordProcessor asyncRecordProcessor,
+      @Value("${spring.trans.streaming.enabled:true}") boolean streamingEnabled,
+      @Value("${spring.trans.streaming.chunk-min-chars:24}") int streamChunkMinChars,
+      @Value("${spring.trans.streaming.chunk-interval:100ms}") Duration streamChunkInterval) {
     this.translationService = translationService;
     this.jsonMessageSenderBroker = jsonMessageSenderBroker;
+    this.asyncRecordProcessor = asyncRecordProcessor;
+    this.streamingEnabled = streamingEnabled;
+    this.streamChunkMinChars = streamChunkMinChars;
+    this.streamChunkIntervalNanos = streamChunkInterval.toNanos();
+  }
+
+  // Listeners only hand the record over; the LLM call runs on a virtual thread of the
+  // topic's workload queue and the response is published as soon as it completes.
+  // The same listeners consume the retry topics (see KafkaRetryConfig): a retryable
+  // TranslationException fails the returned future and the record is tried again later.
+  // Request messages are only changed once the call succeeded, so a retry sends the original.
+  @KafkaListener(topics = Topics.TRANSLATE_REQUEST, groupId = "chat-group")
+  public CompletableFuture<Void> consumeTranslateRequest(ConsumerRecord<String, Message> record) {
+    return asyncRecordProcessor.submit(Workload.TRANSLATE, record, () -> translate(record.value()));
+  }
+
+  @KafkaListener(topics = Topics.CHECK_GRAMMAR, groupId = "chat-group")
+  public CompletableFuture<Void> consumeCheckGrammarRequest(ConsumerRecord<String, Message> record) {
+    return asyncRecordProcessor.submit(Workload.CHECK_GRAMMAR, record, () -> checkGrammar(record.value()));
+  }
+
+  @KafkaListener(topics = Topics.ASK_LIGOBOT, groupId = "chat-group")
+  public CompletableFuture<Void> consumeAskLigoBotRequest(ConsumerRecord<String, Message> record) {
+    return asyncRecordProcessor.submit(Workload.ASK_LIGOBOT, record, () -> askLigoBot(record.value()));
+  }
+
+  // Requests that failed every attempt. Translations are dropped (the room only ever sees real
+  // translations), grammar checks and questions get the busy reply so the user isn't left waiting.
+  // Runs on the listener thread; the container factory acks manually, hence the explicit ack.
+  public void handleDeadLetter(ConsumerRecord<String, Message> record, Acknowledgment ack) {
+    Message message = record.value();
+    logger.warn("Giving up on {}-{}@{} from {}", record.topic(), record.partition(), record.offset(),
+        message != null ? message.getSender() : null);
+    try {
+      if (message != null) {
+        replyToDeadLetter(record.topic(), message);
+      }
+    } finally {
+      ack.acknowledge();
+    }
   }
 
-  @KafkaListener(topics = "translate-request", groupId = "chat-group")
-  public void consumeTranslateRequest(String jsonMessage) throws Exception {
-    ObjectMapper objectMapper = new ObjectMapper();
-    Message chatMessage = objectMapper.readValue(jsonMessage, Message.class);
+  private void replyToDeadLetter(String topic, Message message) {
+    if (topic.equals(Topics.deadLetterOf(Topics.CHECK_GRAMMAR))) {
+      message.setContent(BUSY_REPLY);
+      jsonMessageSenderBroker.sendToSession(Topics.CHECK_GRAMMAR_RESPONSE, message);
+    } else if (topic.equals(Topics.deadLetterOf(Topics.ASK_LIGOBOT))) {
+      message.setContent(BUSY_REPLY);
+      if (streamingEnabled) {
+        message.setType(MessageType.LIGOBOT_RESULT);
+      }
+      jsonMessageSenderBroker.sendToSession(Topics.ASK_LIGOBOT_RESPONSE, message);
+    }
+  }
 
+  private void translate(Message chatMessage) {
+    String content = chatMessage.getContent();
     switch (chatMessage.getTranslationMode()) {
       case "ko":
-        chatMessage.setContent("ko"+chatMessage.getContent());
+        content = "ko" + content;
         logger.info("send message ko");
         break;
       case "en":
-        chatMessage.setContent("en"+chatMessage.getContent());
+        content = "en" + content;
         break;
       case "vi":
-        chatMessage.setContent("vi"+chatMessage.getContent());
+        content = "vi" + content;
         break;
 //      case "ko-vi":
-//        chatMessage.setContent("ko-vi:"+chatMessage.getContent());
+//        content = "ko-vi:" + content;
 //        break;
       default:
         logger.warn("Unknown translation mode: " + chatMessage.getTranslationMode());
     }
 
-    String translatedText = translationService.translate(chatMessage.getContent());
+    String translatedText;
+    try {
+      translatedText = translationService.translate(content, chatMessage.getSender());
+    } catch (TranslationException e) {
+      if (e.isRetryable()) {
+        throw e;
+      }
+      // the room only ever sees real translations
+      logger.warn("Translation for {} skipped: {}", chatMessage.getSender(), e.getMessage());
+      return;
+    }
     chatMessage.setContent(chatMessage.getTranslationMode() +": "+ translatedText);
-    jsonMessageSenderBroker.send("ai-response", chatMessage);
+    jsonMessageSenderBroker.sendToRoom(Topics.AI_RESPONSE, chatMessage);
   }
 
-  @KafkaListener(topics = "check-grammar", groupId = "chat-group")
-  public void consumeCheckGrammarRequest(String jsonMessage) throws Exception {
-    ObjectMapper objectMapper = new ObjectMapper();
-    Message message = objectMapper.readValue(jsonMessage, Message.class);
-
-    String grammarCheckedText = translationService.translate("check_grammar:" + message.getContent());
+  private void checkGrammar(Message message) {
+    String grammarCheckedText;
+    try {
+      grammarCheckedText = translationService.translate("check_grammar:" + message.getContent(), message.getSender());
+    } catch (TranslationException e) {
+      if (e.isRetryable()) {
+        throw e;
+      }
+      logger.warn("Grammar check for {} failed: {}", message.getSender(), e.getMessage());
+      grammarCheckedText = BUSY_REPLY;
+    }
     message.setContent(grammarCheckedText);
 
     // send checked message to kafka
-    jsonMessageSenderBroker.send("check-grammar-response", message);
+    jsonMessageSenderBroker.sendToSession(Topics.CHECK_GRAMMAR_RESPONSE, message);
   }
 
-  @KafkaListener(topics = "ask-ligobot", groupId = "chat-group")
-  public void consumeAskLigoBotRequest(String jsonMessage) throws Exception {
-    ObjectMapper objectMapper = new ObjectMapper();
-    Message message = objectMapper.readValue(jsonMessage, Message.class);
+  private void askLigoBot(Message message) {
+    if (streamingEnabled) {
+      streamAskLigoBot(message);
+      return;
+    }
 
-    String askLigoBotText = translationService.translate("ask_ligobot:" + message.getContent());
+    String askLigoBotText;
+    try {
+      askLigoBotText = translationService.translate("ask_ligobot:" + message.getContent(), message.getSender());
+    } catch (TranslationException e) {
+      if (e.isRetryable()) {
+        throw e;
+      }
+      logger.warn("Ask LigoBot for {} failed: {}", message.getSender(), e.getMessage());
+      askLigoBotText = BUSY_REPLY;
+    }
     message.setContent(askLigoBotText);
 
     // send checked message to kafka
-    jsonMessageSenderBroker.send("ask-ligobot-response", message);
+    jsonMessageSenderBroker.sendToSession(Topics.ASK_LIGOBOT_RESPONSE, message);
   }
 
+  // Streams the answer to the asker: the pieces are grouped into LIGOBOT_CHUNK messages
+  // (at least streamChunkMinChars, or whatever arrived within streamChunkInterval), then a
+  // LIGOBOT_RESULT with the full answer. All of them are keyed by session id so they stay in order.
+  private void streamAskLigoBot(Message message) {
+    StringBuilder pending = new StringBuilder();
+    long[] lastSentAt = {System.nanoTime()};
+
+    String answer;
+    try {
+      answer = translationService.askLigoBotStreaming(message.getContent(), message.getSender(), piece -> {
+        pending.append(piece);
+        long now = System.nanoTime();
+        if (pending.length() >= streamChunkMinChars || now - lastSentAt[0] >= streamChunkIntervalNanos) {
+          sendAskLigoBotChunk(message, pending.toString());
+          pending.setLength(0);
+          lastSentAt[0] = now;
+        }
+      });
+      if (!pending.isEmpty()) {
+        sendAskLigoBotChunk(message, pending.toString());
+      }
+    } catch (TranslationException e) {
+      // nothing was streamed yet when the failure is retryable (see GroqTranslationBackend)
+      if (e.isRetryable()) {
+        throw e;
+      }
+      // the result replaces whatever was streamed so far
+      logger.warn("Ask LigoBot for {} failed: {}", message.getSender(), e.getMessage());
+      answer = BUSY_REPLY;
+    }
+
+    message.setContent(answer);
+    message.setType(MessageType.LIGOBOT_RESULT);
+    jsonMessageSenderBroker.sendToSession(Topics.ASK_LIGOBOT_RESPONSE, message);
+  }
+
+  private void sendAskLigoBotChunk(Message request, String content) {
+    Message chunk = Message.builder()
+        .type(MessageType.LIGOBOT_CHUNK)
+        .content(content)
+        .sender(request.getSender())
+        .sessionId(request.getSessionId())
+        .roomId(request.getRoomId())
+        .build();
+    jsonMessageSenderBroker.sendToSession(Topics.ASK_LIGOBOT_RESPONSE, chunk);
+  }
 }
@@ -0,0 +1,93 @@
+package com.cns.ligo_trans.domain.message.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Adaptive concurrency limit (additive increase, multiplicative decrease).
+// Every successful call raises the limit by 1/limit (about +1 per limit's worth of calls);
+// a call rejected for overload (429, 503, timeout) multiplies it by backoffRatio.
+// Callers over the limit wait in acquire, which is how load queues up instead of failing.
+// Lower-priority callers can be held to a share of the limit, keeping the rest free for others.
+public class AimdLimiter {
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double backoffRatio;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition released = lock.newCondition();
+  private double limit;
+  private int inFlight;
+
+  public AimdLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio) {
+    this.minLimit = Math.max(1, minLimit);
+    this.maxLimit = Math.max(this.minLimit, maxLimit);
+    this.backoffRatio = backoffRatio;
+    this.limit = Math.clamp(initialLimit, this.minLimit, this.maxLimit);
+  }
+
+  public boolean acquire(long timeout, TimeUnit unit) throws InterruptedException {
+    return acquire(timeout, unit, 1.0);
+  }
+
+  // share: fraction of the limit this caller may fill (at least one call is always allowed)
+  public boolean acquire(long timeout, TimeUnit unit, double share) throws InterruptedException {
+    long remaining = unit.toNanos(timeout);
+    lock.lock();
+    try {
+      while (inFlight >= Math.max(1, (int) (limit * share))) {
+        if (remaining <= 0) {
+          return false;
+        }
+        remaining = released.awaitNanos(remaining);
+      }
+      inFlight++;
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void onSuccess() {
+    release(Math.min(maxLimit, limit + 1 / limit));
+  }
+
+  public void onOverload() {
+    release(Math.max(minLimit, limit * backoffRatio));
+  }
+
+  // failures that say nothing about upstream capacity (bad request, parse error, ...)
+  public void onIgnore() {
+    release(limit);
+  }
+
+  public double getLimit() {
+    lock.lock();
+    try {
+      return limit;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getInFlight() {
+    lock.lock();
+    try {
+      return inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void release(double newLimit) {
+    lock.lock();
+    try {
+      inFlight--;
+      limit = newLimit;
+      released.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
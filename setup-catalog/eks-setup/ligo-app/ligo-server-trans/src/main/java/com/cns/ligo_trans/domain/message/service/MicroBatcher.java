@@ -0,0 +1,217 @@
+package com.cns.ligo_trans.domain.message.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Groups concurrent calls with the same key into one batch call.
+// A batch is sent when it holds maxBatchSize items or maxWait after its first item, whichever
+// comes first. Callers block until their own result is available (they run on virtual threads).
+// If the batch answer can't be used (unreadable, or the wrong number of results) every item is retried
+// on its own. A retryable TranslationException (provider overloaded, rate limited) is passed to every
+// caller instead: N single calls would only add to the overload.
+public class MicroBatcher<K, T, R> implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(MicroBatcher.class);
+
+  private final int maxBatchSize;
+  private final Duration maxWait;
+  private final BiFunction<K, List<T>, List<R>> batchCall;
+  private final BiFunction<K, T, R> singleCall;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Map<K, Batch> openBatches = new HashMap<>();
+  private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "micro-batcher-timer");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  private final DistributionSummary batchSizes;
+  private final Counter fallbacks;
+
+  public MicroBatcher(String name, int maxBatchSize, Duration maxWait, BiFunction<K, List<T>, List<R>> batchCall,
+      BiFunction<K, T, R> singleCall, MeterRegistry meterRegistry) {
+    this.maxBatchSize = Math.max(1, maxBatchSize);
+    this.maxWait = maxWait;
+    this.batchCall = batchCall;
+    this.singleCall = singleCall;
+
+    this.batchSizes = DistributionSummary.builder("trans.batch.size")
+        .description("Items sent per batch call")
+        .tag("batcher", name)
+        .register(meterRegistry);
+    this.fallbacks = Counter.builder("trans.batch.fallbacks")
+        .description("Batches retried as single calls")
+        .tag("batcher", name)
+        .register(meterRegistry);
+  }
+
+  public R submit(K key, T item) {
+    Entry entry = new Entry(item);
+    Batch full = null;
+    lock.lock();
+    try {
+      Batch batch = openBatches.get(key);
+      if (batch == null) {
+        Batch created = new Batch(key);
+        openBatches.put(key, created);
+        timer.schedule(() -> flush(created), maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        batch = created;
+      }
+      batch.entries.add(entry);
+      if (batch.entries.size() >= maxBatchSize) {
+        openBatches.remove(key);
+        full = batch;
+      }
+    } finally {
+      lock.unlock();
+    }
+
+    if (full != null) {
+      dispatch(full);
+    }
+    return await(entry.result);
+  }
+
+  // timer: send the batch if it didn't fill up in time
+  private void flush(Batch batch) {
+    boolean due;
+    lock.lock();
+    try {
+      due = openBatches.remove(batch.key, batch);
+    } finally {
+      lock.unlock();
+    }
+    if (due) {
+      executor.execute(() -> dispatch(batch));
+    }
+  }
+
+  private void dispatch(Batch batch) {
+    List<Entry> entries = batch.entries;
+    batchSizes.record(entries.size());
+    if (entries.size() == 1) {
+      completeSingle(batch.key, entries.get(0));
+      return;
+    }
+
+    List<R> results;
+    try {
+      results = batchCall.apply(batch.key, entries.stream().map(entry -> entry.item).toList());
+    } catch (TranslationException e) {
+      if (e.isRetryable()) {
+        logger.warn("Batch of {} for {} failed: {}", entries.size(), batch.key, e.getMessage());
+        failAll(entries, e);
+      } else {
+        fallBack(batch, "failed: " + e.getMessage());
+      }
+      return;
+    } catch (RuntimeException e) {
+      fallBack(batch, "failed: " + e.getMessage());
+      return;
+    } catch (Throwable e) {
+      failAll(entries, e);
+      throw e;
+    }
+    if (results == null || results.size() != entries.size()) {
+      fallBack(batch, "expected " + entries.size() + " results but got " + (results == null ? 0 : results.size()));
+      return;
+    }
+
+    for (int i = 0; i < entries.size(); i++) {
+      entries.get(i).result.complete(results.get(i));
+    }
+  }
+
+  private void fallBack(Batch batch, String reason) {
+    fallbacks.increment();
+    logger.warn("Batch of {} for {} {}, falling back to single calls", batch.entries.size(), batch.key, reason);
+    for (Entry entry : batch.entries) {
+      executor.execute(() -> completeSingle(batch.key, entry));
+    }
+  }
+
+  private void failAll(List<Entry> entries, Throwable e) {
+    for (Entry entry : entries) {
+      entry.result.completeExceptionally(e);
+    }
+  }
+
+  // Errors too, or the caller blocked in submit would wait forever
+  private void completeSingle(K key, Entry entry) {
+    try {
+      entry.result.complete(singleCall.apply(key, entry.item));
+    } catch (Throwable e) {
+      entry.result.completeExceptionally(e);
+    }
+  }
+
+  private R await(CompletableFuture<R> result) {
+    try {
+      return result.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  // sends the open batches right away and waits for the calls in progress
+  @Override
+  public void close() {
+    List<Batch> remaining;
+    lock.lock();
+    try {
+      remaining = new ArrayList<>(openBatches.values());
+      openBatches.clear();
+    } finally {
+      lock.unlock();
+    }
+    timer.shutdownNow();
+    for (Batch batch : remaining) {
+      executor.execute(() -> dispatch(batch));
+    }
+    executor.close();
+  }
+
+  private final class Batch {
+
+    private final K key;
+    private final List<Entry> entries = new ArrayList<>();
+
+    private Batch(K key) {
+      this.key = key;
+    }
+  }
+
+  private final class Entry {
+
+    private final T item;
+    private final CompletableFuture<R> result = new CompletableFuture<>();
+
+    private Entry(T item) {
+      this.item = item;
+    }
+  }
+}
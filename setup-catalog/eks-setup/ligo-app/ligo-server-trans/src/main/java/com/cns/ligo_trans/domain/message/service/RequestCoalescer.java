@@ -0,0 +1,81 @@
+package com.cns.ligo_trans.domain.message.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Single-flight for LLM calls: concurrent requests with the same mode and content share
+// one outstanding call and all receive its result (or its failure).
+// Nothing is kept once the call completes, so unlike TranslationCache results are never stale.
+@Component
+public class RequestCoalescer {
+
+  private final ConcurrentMap<Key, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+  private final MeterRegistry meterRegistry;
+  private final boolean enabled;
+
+  public RequestCoalescer(MeterRegistry meterRegistry,
+      @Value("${spring.trans.coalescing.enabled:true}") boolean enabled) {
+    this.meterRegistry = meterRegistry;
+    this.enabled = enabled;
+
+    Gauge.builder("trans.requests.coalescing.in_flight", inFlight, Map::size)
+        .description("Distinct LLM calls currently shared by coalesced requests")
+        .register(meterRegistry);
+  }
+
+  public String execute(String mode, String content, Supplier<String> call) {
+    if (!enabled) {
+      return call.get();
+    }
+
+    Key key = new Key(mode, TranslationCache.normalize(content));
+    CompletableFuture<String> pending = new CompletableFuture<>();
+    CompletableFuture<String> existing = inFlight.putIfAbsent(key, pending);
+    if (existing != null) {
+      meterRegistry.counter("trans.requests.coalesced", "mode", tagOf(mode)).increment();
+      return await(existing);
+    }
+
+    try {
+      String result = call.get();
+      pending.complete(result);
+      return result;
+    } catch (Throwable e) {
+      // Errors too: the followers are blocked on pending and would otherwise wait forever
+      pending.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, pending);
+    }
+  }
+
+  private static String await(CompletableFuture<String> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  // "check_grammar:" -> "check_grammar"
+  private static String tagOf(String mode) {
+    return mode.endsWith(":") ? mode.substring(0, mode.length() - 1) : mode;
+  }
+
+  private record Key(String mode, String content) {
+  }
+}
@@ -0,0 +1,41 @@
+package com.cns.ligo_trans.domain.message.service;
+
+// Token bucket that hands out reservations: a caller that finds the bucket empty reserves the
+// next token and is told how long to wait for it, so waiting callers are served in arrival order.
+public class TokenBucket {
+
+  private final double tokensPerNano;
+  private final double capacity;
+  private double tokens;
+  private long refilledAt;
+
+  public TokenBucket(double tokensPerSecond, int burst) {
+    this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+    this.capacity = Math.max(1, burst);
+    this.tokens = capacity;
+    this.refilledAt = System.nanoTime();
+  }
+
+  // Nanoseconds to wait before the reserved token is available (0 = now),
+  // or -1 when that would take longer than maxWaitNanos (nothing is reserved then)
+  public synchronized long reserve(long maxWaitNanos) {
+    long now = System.nanoTime();
+    tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+    refilledAt = now;
+
+    if (tokens >= 1) {
+      tokens -= 1;
+      return 0;
+    }
+    long waitNanos = (long) Math.ceil((1 - tokens) / tokensPerNano);
+    if (waitNanos > maxWaitNanos) {
+      return -1;
+    }
+    tokens -= 1;
+    return waitNanos;
+  }
+
+  public synchronized double getAvailableTokens() {
+    return tokens;
+  }
+}
@@ -0,0 +1,69 @@
+package com.cns.ligo_trans.domain.message.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// In-memory cache of LLM results keyed by (mode, normalized content).
+// Short chat lines ("hi", "thanks", ...) repeat constantly, so their translations are served
+// from here instead of calling Groq again. Long texts are not cached since they rarely repeat.
+@Component
+public class TranslationCache {
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private final Cache<Key, String> cache;
+  private final boolean enabled;
+  private final int maxContentLength;
+
+  public TranslationCache(MeterRegistry meterRegistry,
+      @Value("${spring.trans.cache.enabled:true}") boolean enabled,
+      @Value("${spring.trans.cache.max-size:10000}") long maxSize,
+      @Value("${spring.trans.cache.ttl:24h}") Duration ttl,
+      @Value("${spring.trans.cache.max-content-length:200}") int maxContentLength) {
+    this.enabled = enabled;
+    this.maxContentLength = maxContentLength;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttl)
+        .recordStats()
+        .build();
+
+    // cache.gets{result=hit|miss}, cache.evictions, cache.size ... tagged cache=translations
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "translations");
+  }
+
+  public boolean isCacheable(String content) {
+    return enabled && content.length() <= maxContentLength;
+  }
+
+  // cached result, or null
+  public String get(String mode, String content) {
+    return isCacheable(content) ? cache.getIfPresent(new Key(mode, normalize(content))) : null;
+  }
+
+  public void put(String mode, String content, String result) {
+    if (isCacheable(content)) {
+      cache.put(new Key(mode, normalize(content)), result);
+    }
+  }
+
+  public long size() {
+    return cache.estimatedSize();
+  }
+
+  // same text typed with different spacing or Unicode composition (common with Korean/Vietnamese IMEs)
+  static String normalize(String content) {
+    String composed = Normalizer.normalize(content, Normalizer.Form.NFC);
+    return WHITESPACE.matcher(composed).replaceAll(" ").strip();
+  }
+
+  private record Key(String mode, String content) {
+  }
+}
@@ -0,0 +1,30 @@
+package com.cns.ligo_trans.domain.message.service;
+
+// The LLM call failed or could not be made in time (rate limited, overloaded, upstream error).
+// Callers decide what to tell the user instead of forwarding the error text.
+// Retryable failures (overload, timeouts, 5xx) may succeed later and go to the retry topics;
+// the others (4xx, the user's own rate limit, a partly streamed answer, a response that can't be
+// read) are answered right away. Failures are not retryable unless the thrower says so.
+public class TranslationException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final boolean retryable;
+
+  public TranslationException(String message) {
+    this(message, null, false);
+  }
+
+  public TranslationException(String message, Throwable cause) {
+    this(message, cause, false);
+  }
+
+  public TranslationException(String message, Throwable cause, boolean retryable) {
+    super(message, cause);
+    this.retryable = retryable;
+  }
+
+  public boolean isRetryable() {
+    return retryable;
+  }
+}
@@ -1,28 +1,33 @@
 package com.cns.ligo_trans.domain.message.service;
 
-import com.cns.ligo_trans.global.config.SSLHelper;
-import java.security.KeyManagementException;
-import java.security.NoSuchAlgorithmException;
-import org.json.JSONObject;
+import com.cns.ligo_trans.domain.message.backend.TranslationBackendRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @Service
 public class TranslationService {
 
   private static final Logger logger = LoggerFactory.getLogger(TranslationService.class);
 
-  @Value("${spring.groq.api-key}")
-  private String groqApiKey;
+  private static final String CHECK_GRAMMAR_MODE = "check_grammar:";
+  private static final String ASK_LIGOBOT_MODE = "ask_ligobot:";
 
-  @Value("${spring.groq.api-url}")
-  private String groqApiUrl;
+  // backend and model per workload (see TranslationBackendRouter)
+  private final TranslationBackendRouter backendRouter;
+  private final TranslationCache translationCache;
+  private final RequestCoalescer requestCoalescer;
+  private final UpstreamGuard upstreamGuard;
+  // groups translations to the same language into one prompt, null when batching is off
+  private final MicroBatcher<String, String, String> translationBatcher;
 
   private static final Map<String, String> LANGUAGE_MAP = Map.of(
       "ko", "Korean",
@@ -32,9 +37,23 @@ public class TranslationService {
       "ask_ligobot:", "ask ligobot"
   );
 
-  public String translate(String text) throws NoSuchAlgorithmException, KeyManagementException {
-    SSLHelper.disableSslVerification();
+  public TranslationService(TranslationBackendRouter backendRouter, TranslationCache translationCache,
+      RequestCoalescer requestCoalescer, UpstreamGuard upstreamGuard, MeterRegistry meterRegistry,
+      @Value("${spring.trans.batch.enabled:false}") boolean batchEnabled,
+      @Value("${spring.trans.batch.max-size:10}") int batchMaxSize,
+      @Value("${spring.trans.batch.max-wait:50ms}") Duration batchMaxWait) {
+    this.backendRouter = backendRouter;
+    this.translationCache = translationCache;
+    this.requestCoalescer = requestCoalescer;
+    this.upstreamGuard = upstreamGuard;
+    this.translationBatcher = batchEnabled
+        ? new MicroBatcher<>("translation", batchMaxSize, batchMaxWait, this::requestBatchTranslation,
+            this::requestTranslation, meterRegistry)
+        : null;
+  }
 
+  // Throws TranslationException when the LLM can't be reached in time (rate limits, overload, errors)
+  public String translate(String text, String sender) {
     String mode = LANGUAGE_MAP.keySet().stream()
         .filter(text::startsWith)
         .findFirst()
@@ -47,60 +66,54 @@ public class TranslationService {
     }
 
     String contentToTranslate = text.substring(mode.length()).trim();
-    String requestBody = buildRequestBody(mode, contentToTranslate);
-
-    return sendTranslationRequest(requestBody);
-  }
 
-//  private String buildRequestBody(String mode, String content) {
-//    return String.format(
-//        "{ \"model\": \"llama-3.3-70b-versatile\", \"messages\": [{ \"role\": \"user\", \"content\": \"You are a helpful assistant that %s. The text is: %s\" }] }",
-//        mode.equals("check_grammar:") ? "checks grammar for the text. You will only reply with the corrected text in the text language and nothing else." : "translates the text to " + LANGUAGE_MAP.get(mode) +". You will only reply with the translation text and nothing else.",
-//        content
-//    );
-//  }
-
-  private String buildRequestBody(String mode, String content) {
-    String assistantRole;
-
-    if (mode.equals("check_grammar:")) {
-      assistantRole = "checks grammar for the text. You will only reply with the corrected text in the text language and nothing else.";
-    } else if (mode.equals("ask_ligobot:")) {
-      assistantRole = "answers for the following text.";
-    } else {
-      assistantRole = "translates the text to " + LANGUAGE_MAP.get(mode) + ". You will only reply with the translation text and nothing else.";
+    // bot answers are open-ended, only translations and grammar checks are cached
+    if (mode.equals(ASK_LIGOBOT_MODE)) {
+      upstreamGuard.acquireSender(sender);
+      return requestCoalescer.execute(mode, contentToTranslate,
+          () -> upstreamGuard.call(mode, () -> backendRouter.ask(contentToTranslate)));
     }
 
-    return String.format(
-        "{ \"model\": \"llama-3.3-70b-versatile\", \"messages\": [{ \"role\": \"user\", \"content\": \"You are a helpful assistant that %s. The text is: %s\" }] }",
-        assistantRole,
-        content
-    );
+    String cached = translationCache.get(mode, contentToTranslate);
+    if (cached != null) {
+      return cached;
+    }
+    upstreamGuard.acquireSender(sender);
+    // concurrent identical requests share one call; the first caller fills the cache
+    return requestCoalescer.execute(mode, contentToTranslate, () -> {
+      String result;
+      if (mode.equals(CHECK_GRAMMAR_MODE)) {
+        result = upstreamGuard.call(mode, () -> backendRouter.checkGrammar(contentToTranslate));
+      } else {
+        result = translationBatcher != null
+            ? translationBatcher.submit(mode, contentToTranslate)
+            : requestTranslation(mode, contentToTranslate);
+      }
+      translationCache.put(mode, contentToTranslate, result);
+      return result;
+    });
   }
 
+  // Ask LigoBot with a streamed completion: onChunk receives each piece of the answer as it arrives,
+  // the full answer is returned at the end. Not cached or coalesced since every asker gets their own stream.
+  public String askLigoBotStreaming(String content, String sender, Consumer<String> onChunk) {
+    upstreamGuard.acquireSender(sender);
+    String question = content.trim();
+    return upstreamGuard.call(ASK_LIGOBOT_MODE, () -> backendRouter.askStreaming(question, onChunk));
+  }
 
-  private String sendTranslationRequest(String requestBody) {
-    try {
-      RestTemplate restTemplate = new RestTemplate();
-      HttpHeaders headers = new HttpHeaders();
-      headers.set("Authorization", "Bearer " + groqApiKey);
-      headers.setContentType(MediaType.APPLICATION_JSON);
-
-      HttpEntity<String> entity = new HttpEntity<>(requestBody, headers);
-      ResponseEntity<String> response = restTemplate.exchange(groqApiUrl, HttpMethod.POST, entity, String.class);
+  private String requestTranslation(String mode, String content) {
+    return upstreamGuard.call(mode, () -> backendRouter.translate(LANGUAGE_MAP.get(mode), content));
+  }
 
-      return extractTranslation(response.getBody());
-    } catch (Exception e) {
-      logger.error("Translation API error", e);
-      return "An error occurred: " + e.getMessage();
-    }
+  private List<String> requestBatchTranslation(String mode, List<String> contents) {
+    return upstreamGuard.call(mode, () -> backendRouter.translateBatch(LANGUAGE_MAP.get(mode), contents));
   }
 
-  private String extractTranslation(String responseBody) {
-    JSONObject jsonResponse = new JSONObject(responseBody);
-    return jsonResponse.getJSONArray("choices")
-        .getJSONObject(0)
-        .getJSONObject("message")
-        .getString("content");
+  @PreDestroy
+  public void shutdown() {
+    if (translationBatcher != null) {
+      translationBatcher.close();
+    }
   }
 }
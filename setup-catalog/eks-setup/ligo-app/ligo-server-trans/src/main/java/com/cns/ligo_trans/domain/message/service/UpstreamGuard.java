@@ -0,0 +1,250 @@
+package com.cns.ligo_trans.domain.message.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+// Admission control for calls to the LLM provider.
+// - token buckets per sender (checked once per request) and per mode, i.e. target language,
+//   check_grammar or ask_ligobot (checked per upstream call)
+// - an AIMD concurrency limit that shrinks when the provider answers 429/503 or times out;
+//   grammar checks and bot questions may only fill a share of it, so translations always find a slot
+// - retries of those overload responses, honouring Retry-After, otherwise exponential backoff with full jitter
+// Callers wait (up to max-wait) instead of failing right away; when that is not enough a
+// TranslationException is thrown.
+@Component
+public class UpstreamGuard {
+
+  private static final Logger logger = LoggerFactory.getLogger(UpstreamGuard.class);
+  private static final String ANONYMOUS = "anonymous";
+  private static final String CHECK_GRAMMAR = "check_grammar";
+  private static final String ASK_LIGOBOT = "ask_ligobot";
+
+  private final AimdLimiter limiter;
+  private final ConcurrentMap<String, TokenBucket> modeBuckets = new ConcurrentHashMap<>();
+  private final Cache<String, TokenBucket> senderBuckets;
+  private final double modeRate;
+  private final int modeBurst;
+  private final double senderRate;
+  private final int senderBurst;
+  private final double grammarShare;
+  private final double askLigoBotShare;
+  private final long maxWaitNanos;
+  private final int maxAttempts;
+  private final long baseDelayMillis;
+  private final long maxDelayMillis;
+
+  private final MeterRegistry meterRegistry;
+
+  public UpstreamGuard(MeterRegistry meterRegistry,
+      @Value("${spring.trans.limits.concurrency.initial:8}") int initialLimit,
+      @Value("${spring.trans.limits.concurrency.min:1}") int minLimit,
+      @Value("${spring.trans.limits.concurrency.max:64}") int maxLimit,
+      @Value("${spring.trans.limits.concurrency.share.check-grammar:0.75}") double grammarShare,
+      @Value("${spring.trans.limits.concurrency.share.ask-ligobot:0.5}") double askLigoBotShare,
+      @Value("${spring.trans.limits.mode.requests-per-second:20}") double modeRate,
+      @Value("${spring.trans.limits.mode.burst:40}") int modeBurst,
+      @Value("${spring.trans.limits.sender.requests-per-second:1}") double senderRate,
+      @Value("${spring.trans.limits.sender.burst:5}") int senderBurst,
+      @Value("${spring.trans.limits.max-wait:10s}") Duration maxWait,
+      @Value("${spring.trans.limits.retry.max-attempts:3}") int maxAttempts,
+      @Value("${spring.trans.limits.retry.base-delay:500ms}") Duration baseDelay,
+      @Value("${spring.trans.limits.retry.max-delay:10s}") Duration maxDelay) {
+    this.meterRegistry = meterRegistry;
+    this.limiter = new AimdLimiter(initialLimit, minLimit, maxLimit, 0.5);
+    this.modeRate = modeRate;
+    this.modeBurst = modeBurst;
+    this.senderRate = senderRate;
+    this.senderBurst = senderBurst;
+    this.grammarShare = grammarShare;
+    this.askLigoBotShare = askLigoBotShare;
+    this.maxWaitNanos = maxWait.toNanos();
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.baseDelayMillis = baseDelay.toMillis();
+    this.maxDelayMillis = maxDelay.toMillis();
+    this.senderBuckets = Caffeine.newBuilder()
+        .expireAfterAccess(Duration.ofMinutes(10))
+        .maximumSize(100_000)
+        .build();
+
+    Gauge.builder("trans.upstream.concurrency.limit", limiter, AimdLimiter::getLimit)
+        .description("Current adaptive concurrency limit for LLM calls")
+        .register(meterRegistry);
+    Gauge.builder("trans.upstream.concurrency.in_flight", limiter, AimdLimiter::getInFlight)
+        .description("LLM calls in progress")
+        .register(meterRegistry);
+  }
+
+  // once per user request that needs the LLM (cache hits are free)
+  public void acquireSender(String sender) {
+    String key = sender != null ? sender : ANONYMOUS;
+    TokenBucket bucket = senderBuckets.get(key, k -> new TokenBucket(senderRate, senderBurst));
+    // the user's own limit: shed the excess instead of retrying it later
+    await(bucket, "sender", false);
+  }
+
+  // one upstream call: mode rate limit, concurrency limit and retries of overload responses
+  public <T> T call(String mode, Supplier<T> upstreamCall) {
+    String tag = tagOf(mode);
+    await(modeBuckets.computeIfAbsent(tag, m -> new TokenBucket(modeRate, modeBurst)), "mode", true);
+
+    for (int attempt = 1; ; attempt++) {
+      acquirePermit(tag);
+      // the permit is returned exactly once; anything not classified below (an Error) gives it back as ignored
+      boolean released = false;
+      long retryDelayMillis;
+      try {
+        T result = upstreamCall.get();
+        limiter.onSuccess();
+        released = true;
+        return result;
+      } catch (RestClientResponseException e) {
+        if (!isOverload(e)) {
+          limiter.onIgnore();
+          released = true;
+          // 4xx other than 429 would fail the same way again
+          throw new TranslationException("LLM request failed with status " + e.getStatusCode().value(), e,
+              e.getStatusCode().is5xxServerError());
+        }
+        limiter.onOverload();
+        released = true;
+        meterRegistry.counter("trans.upstream.throttled", "mode", tag, "status",
+            String.valueOf(e.getStatusCode().value())).increment();
+        retryDelayMillis = retryAfterMillis(e.getResponseHeaders());
+      } catch (ResourceAccessException e) {
+        // connect / read timeout
+        limiter.onOverload();
+        released = true;
+        meterRegistry.counter("trans.upstream.throttled", "mode", tag, "status", "timeout").increment();
+        retryDelayMillis = -1;
+      } catch (TranslationException e) {
+        limiter.onIgnore();
+        released = true;
+        throw e;
+      } catch (RuntimeException e) {
+        limiter.onIgnore();
+        released = true;
+        // e.g. a response that can't be parsed: the same request would fail the same way
+        throw new TranslationException("LLM request failed", e, false);
+      } finally {
+        if (!released) {
+          limiter.onIgnore();
+        }
+      }
+
+      if (attempt >= maxAttempts) {
+        throw new TranslationException("LLM provider is overloaded, gave up after " + attempt + " attempts", null,
+            true);
+      }
+      long delay = retryDelayMillis >= 0 ? Math.min(retryDelayMillis, maxDelayMillis) : backoffMillis(attempt);
+      meterRegistry.counter("trans.upstream.retries", "mode", tag).increment();
+      logger.info("LLM provider overloaded ({} attempt {}), retrying in {} ms", tag, attempt, delay);
+      sleep(delay);
+    }
+  }
+
+  private void acquirePermit(String tag) {
+    long startedAt = System.nanoTime();
+    try {
+      boolean acquired = limiter.acquire(maxWaitNanos, TimeUnit.NANOSECONDS, shareOf(tag));
+      Timer.builder("trans.upstream.permit.wait")
+          .description("Time spent waiting for an LLM call slot")
+          .tag("mode", tag)
+          .register(meterRegistry)
+          .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+      if (!acquired) {
+        meterRegistry.counter("trans.ratelimit.rejected", "scope", "concurrency").increment();
+        throw new TranslationException("Too many LLM calls in progress", null, true);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TranslationException("Interrupted while waiting for an LLM call slot", e);
+    }
+  }
+
+  private void await(TokenBucket bucket, String scope, boolean retryable) {
+    long waitNanos = bucket.reserve(maxWaitNanos);
+    if (waitNanos < 0) {
+      meterRegistry.counter("trans.ratelimit.rejected", "scope", scope).increment();
+      throw new TranslationException("Rate limit exceeded (" + scope + ")", null, retryable);
+    }
+    Timer.builder("trans.ratelimit.wait")
+        .description("Time spent waiting for a rate limit token")
+        .tag("scope", scope)
+        .register(meterRegistry)
+        .record(waitNanos, TimeUnit.NANOSECONDS);
+    if (waitNanos > 0) {
+      sleep(TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1);
+    }
+  }
+
+  private double shareOf(String tag) {
+    return switch (tag) {
+      case CHECK_GRAMMAR -> grammarShare;
+      case ASK_LIGOBOT -> askLigoBotShare;
+      default -> 1.0;
+    };
+  }
+
+  // full jitter: random delay in [0, min(max, base * 2^(attempt-1))]
+  private long backoffMillis(int attempt) {
+    long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 20));
+    return ThreadLocalRandom.current().nextLong(ceiling + 1);
+  }
+
+  private static boolean isOverload(RestClientResponseException e) {
+    int status = e.getStatusCode().value();
+    return status == HttpStatus.TOO_MANY_REQUESTS.value() || status == HttpStatus.SERVICE_UNAVAILABLE.value();
+  }
+
+  // Retry-After in seconds or as an HTTP date; -1 when absent or unreadable
+  static long retryAfterMillis(HttpHeaders headers) {
+    String retryAfter = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+    if (retryAfter == null || retryAfter.isBlank()) {
+      return -1;
+    }
+    try {
+      return Math.max(0, (long) (Double.parseDouble(retryAfter.trim()) * 1000));
+    } catch (NumberFormatException e) {
+      try {
+        ZonedDateTime at = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+        return Math.max(0, Duration.between(ZonedDateTime.now(at.getZone()), at).toMillis());
+      } catch (DateTimeParseException ignored) {
+        return -1;
+      }
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TranslationException("Interrupted while waiting to call the LLM", e);
+    }
+  }
+
+  // "check_grammar:" -> "check_grammar"
+  private static String tagOf(String mode) {
+    return mode.endsWith(":") ? mode.substring(0, mode.length() - 1) : mode;
+  }
+}
@@ -0,0 +1,95 @@
+package com.cns.ligo_trans.global.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
+import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
+import org.apache.hc.client5.http.ssl.TlsSocketStrategy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+// HTTP client for the Groq API.
+// One pooled, keep-alive client for the whole service: connections (and their TLS sessions)
+// are reused across translation calls instead of being opened per request.
+@Configuration
+public class GroqClientConfig {
+
+  private static final Logger logger = LoggerFactory.getLogger(GroqClientConfig.class);
+  private static final String CLIENT_NAME = "groq";
+
+  @Bean
+  public PoolingHttpClientConnectionManager groqConnectionManager(MeterRegistry meterRegistry,
+      @Value("${spring.groq.http.max-connections:50}") int maxConnections,
+      @Value("${spring.groq.http.connect-timeout:5s}") Duration connectTimeout,
+      @Value("${spring.groq.http.read-timeout:60s}") Duration readTimeout,
+      @Value("${spring.groq.http.connection-ttl:5m}") Duration connectionTtl,
+      @Value("${spring.groq.ssl.trust-all:false}") boolean trustAll) throws GeneralSecurityException {
+    TlsSocketStrategy tlsStrategy = new MeteredTlsSocketStrategy(tlsStrategy(trustAll), meterRegistry, CLIENT_NAME);
+    PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+        .setTlsSocketStrategy(tlsStrategy)
+        // every request goes to the same host, so the route limit is the pool limit
+        .setMaxConnTotal(maxConnections)
+        .setMaxConnPerRoute(maxConnections)
+        .setDefaultConnectionConfig(ConnectionConfig.custom()
+            .setConnectTimeout(Timeout.of(connectTimeout))
+            .setSocketTimeout(Timeout.of(readTimeout))
+            .setTimeToLive(TimeValue.of(connectionTtl))
+            .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+            .build())
+        .build();
+
+    // httpcomponents.httpclient.pool.total.{max,connections,pending} tagged httpclient=groq
+    new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, CLIENT_NAME).bindTo(meterRegistry);
+    return connectionManager;
+  }
+
+  @Bean
+  public CloseableHttpClient groqHttpClient(PoolingHttpClientConnectionManager groqConnectionManager,
+      @Value("${spring.groq.http.pool-acquire-timeout:5s}") Duration poolAcquireTimeout,
+      @Value("${spring.groq.http.idle-timeout:60s}") Duration idleTimeout) {
+    return HttpClients.custom()
+        .setConnectionManager(groqConnectionManager)
+        .setDefaultRequestConfig(RequestConfig.custom()
+            .setConnectionRequestTimeout(Timeout.of(poolAcquireTimeout))
+            .build())
+        // keep-alive follows the server's Keep-Alive header; idle connections are closed in the background
+        .evictIdleConnections(TimeValue.of(idleTimeout))
+        .evictExpiredConnections()
+        // 429/503 are retried by UpstreamGuard, which also adjusts the concurrency limit and counts them
+        .disableAutomaticRetries()
+        .build();
+  }
+
+  @Bean
+  public RestClient groqRestClient(RestClient.Builder builder, CloseableHttpClient groqHttpClient,
+      @Value("${spring.groq.api-key}") String groqApiKey) {
+    return builder
+        .requestFactory(new HttpComponentsClientHttpRequestFactory(groqHttpClient))
+        .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + groqApiKey)
+        .build();
+  }
+
+  private static TlsSocketStrategy tlsStrategy(boolean trustAll) throws GeneralSecurityException {
+    if (trustAll) {
+      logger.warn("TLS certificate verification is disabled for the Groq client (spring.groq.ssl.trust-all)");
+      return new DefaultClientTlsStrategy(SSLHelper.trustAllSslContext(), NoopHostnameVerifier.INSTANCE);
+    }
+    return DefaultClientTlsStrategy.createSystemDefault();
+  }
+}
@@ -0,0 +1,17 @@
+package com.cns.ligo_trans.global.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Customizations of the application ObjectMapper (shared by REST and Kafka)
+@Configuration
+public class JacksonConfig {
+
+  // replaces reflective getter/setter calls with generated lambdas
+  @Bean
+  public Module blackbirdModule() {
+    return new BlackbirdModule();
+  }
+}
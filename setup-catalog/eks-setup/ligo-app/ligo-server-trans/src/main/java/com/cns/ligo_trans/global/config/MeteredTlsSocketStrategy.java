@@ -0,0 +1,48 @@
+package com.cns.ligo_trans.global.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLSocket;
+import org.apache.hc.client5.http.ssl.TlsSocketStrategy;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+// Counts and times TLS handshakes of the pooled HTTP client.
+// A handshake only happens when the pool opens a new connection, so a steadily growing count
+// means connections are not being reused.
+public class MeteredTlsSocketStrategy implements TlsSocketStrategy {
+
+  private final TlsSocketStrategy delegate;
+  private final Timer handshakes;
+  private final Timer failedHandshakes;
+
+  public MeteredTlsSocketStrategy(TlsSocketStrategy delegate, MeterRegistry meterRegistry, String clientName) {
+    this.delegate = delegate;
+    this.handshakes = handshakeTimer(meterRegistry, clientName, "success");
+    this.failedHandshakes = handshakeTimer(meterRegistry, clientName, "failure");
+  }
+
+  @Override
+  public SSLSocket upgrade(Socket socket, String target, int port, Object attachment, HttpContext context)
+      throws IOException {
+    long start = System.nanoTime();
+    try {
+      SSLSocket sslSocket = delegate.upgrade(socket, target, port, attachment, context);
+      handshakes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      return sslSocket;
+    } catch (IOException | RuntimeException e) {
+      failedHandshakes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      throw e;
+    }
+  }
+
+  private static Timer handshakeTimer(MeterRegistry meterRegistry, String clientName, String outcome) {
+    return Timer.builder("trans.http.client.tls.handshakes")
+        .description("TLS handshakes of new outbound connections")
+        .tag("client", clientName)
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+}
@@ -3,20 +3,20 @@ package com.cns.ligo_trans.global.config;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.X509Certificate;
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 
 // TODO : remove in production
+// Trust-all TLS for the Groq client, only used when spring.groq.ssl.trust-all is set.
+// Builds a context for that client instead of replacing the JVM-wide defaults.
 public class SSLHelper {
 
-  public static void disableSslVerification() throws NoSuchAlgorithmException, KeyManagementException {
+  public static SSLContext trustAllSslContext() throws NoSuchAlgorithmException, KeyManagementException {
     TrustManager[] trustAllCertificates = new TrustManager[]{
         new X509TrustManager() {
           public X509Certificate[] getAcceptedIssuers() {
-            return null;
+            return new X509Certificate[0];
           }
           public void checkClientTrusted(X509Certificate[] certs, String authType) {}
           public void checkServerTrusted(X509Certificate[] certs, String authType) {}
@@ -25,8 +25,6 @@ public class SSLHelper {
 
     SSLContext sc = SSLContext.getInstance("TLS");
     sc.init(null, trustAllCertificates, new java.security.SecureRandom());
-    HttpsURLConnection.setDefaultSSLSocketFactory(sc.getSocketFactory());
-    HostnameVerifier allHostsValid = (hostname, session) -> true;
-    HttpsURLConnection.setDefaultHostnameVerifier(allHostsValid);
+    return sc;
   }
 }
@@ -0,0 +1,160 @@
+package com.cns.ligo_trans.global.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Runs Kafka records on virtual threads so a slow LLM call doesn't hold up its partition.
+// Each workload has its own executor and concurrency budget, so long ask-ligobot answers can't
+// take the slots inline translations need. Within a workload, up to maxInFlightPerPartition records
+// of each partition run at once. When either limit is reached the listener thread waits for a slot,
+// which stops polling that topic instead of buffering without bound.
+// submit returns a future that completes with the task. Listeners return it, so the container
+// acknowledges the record when it finishes, or hands it to the retry topics when it fails
+// (see KafkaRetryConfig). With async acks (see KafkaConsumerConfig) the container only commits offsets
+// up to the first record that is still running.
+@Component
+public class AsyncRecordProcessor {
+
+  private static final Logger logger = LoggerFactory.getLogger(AsyncRecordProcessor.class);
+
+  private final Map<Workload, WorkloadQueue> queues = new EnumMap<>(Workload.class);
+  private final ConcurrentMap<TopicPartition, Semaphore> partitionSlots = new ConcurrentHashMap<>();
+  private final int maxInFlightPerPartition;
+
+  public AsyncRecordProcessor(MeterRegistry meterRegistry,
+      @Value("${spring.trans.processing.max-in-flight-per-partition:8}") int maxInFlightPerPartition,
+      @Value("${spring.trans.processing.translate.max-concurrency:64}") int translateConcurrency,
+      @Value("${spring.trans.processing.check-grammar.max-concurrency:16}") int grammarConcurrency,
+      @Value("${spring.trans.processing.ask-ligobot.max-concurrency:8}") int askLigoBotConcurrency) {
+    this.maxInFlightPerPartition = Math.max(1, maxInFlightPerPartition);
+    queues.put(Workload.TRANSLATE, new WorkloadQueue(Workload.TRANSLATE, translateConcurrency, meterRegistry));
+    queues.put(Workload.CHECK_GRAMMAR, new WorkloadQueue(Workload.CHECK_GRAMMAR, grammarConcurrency, meterRegistry));
+    queues.put(Workload.ASK_LIGOBOT, new WorkloadQueue(Workload.ASK_LIGOBOT, askLigoBotConcurrency, meterRegistry));
+  }
+
+  public CompletableFuture<Void> submit(Workload workload, ConsumerRecord<?, ?> record, Runnable task) {
+    long receivedAt = System.nanoTime();
+    WorkloadQueue queue = queues.get(workload);
+    Semaphore slots = partitionSlots.computeIfAbsent(
+        new TopicPartition(record.topic(), record.partition()), tp -> new Semaphore(maxInFlightPerPartition));
+    try {
+      slots.acquire();
+      try {
+        queue.budget.acquire();
+      } catch (InterruptedException e) {
+        slots.release();
+        throw e;
+      }
+    } catch (InterruptedException e) {
+      // container is stopping; the record is dead-lettered and can be replayed
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting to process " + describe(record), e);
+    }
+
+    CompletableFuture<Void> result = new CompletableFuture<>();
+    queue.inFlight.incrementAndGet();
+    try {
+      queue.executor.execute(() -> {
+        queue.waitTimer.record(System.nanoTime() - receivedAt, TimeUnit.NANOSECONDS);
+        Throwable failure = null;
+        try {
+          task.run();
+        } catch (Throwable e) {
+          queue.failures.increment();
+          logger.warn("Failed to process {}: {}", describe(record), e.toString());
+          failure = e;
+        }
+        // free the slots before completing, the container may hand over the next record right away
+        queue.inFlight.decrementAndGet();
+        queue.budget.release();
+        slots.release();
+        if (failure == null) {
+          result.complete(null);
+        } else {
+          result.completeExceptionally(failure);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      queue.inFlight.decrementAndGet();
+      queue.budget.release();
+      slots.release();
+      throw e;
+    }
+    return result;
+  }
+
+  public int getInFlight() {
+    return queues.values().stream().mapToInt(queue -> queue.inFlight.get()).sum();
+  }
+
+  public int getInFlight(Workload workload) {
+    return queues.get(workload).inFlight.get();
+  }
+
+  private static String describe(ConsumerRecord<?, ?> record) {
+    return record.topic() + "-" + record.partition() + "@" + record.offset();
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    for (WorkloadQueue queue : queues.values()) {
+      queue.executor.shutdown();
+    }
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    for (WorkloadQueue queue : queues.values()) {
+      if (!queue.executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+        logger.warn("{} {} records still in flight at shutdown, they will be redelivered",
+            queue.inFlight.get(), queue.workload.getTag());
+      }
+    }
+  }
+
+  private static final class WorkloadQueue {
+
+    private final Workload workload;
+    private final ExecutorService executor;
+    private final Semaphore budget;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Counter failures;
+
+    WorkloadQueue(Workload workload, int maxConcurrency, MeterRegistry meterRegistry) {
+      this.workload = workload;
+      this.executor = Executors.newThreadPerTaskExecutor(
+          Thread.ofVirtual().name("trans-" + workload.getTag() + "-", 0).factory());
+      this.budget = new Semaphore(Math.max(1, maxConcurrency));
+
+      Gauge.builder("trans.requests.in_flight", inFlight, AtomicInteger::get)
+          .description("Kafka records being processed")
+          .tag("workload", workload.getTag())
+          .register(meterRegistry);
+      // from the listener receiving the record until a worker picks it up
+      this.waitTimer = Timer.builder("trans.requests.queue.wait")
+          .description("Time records wait for a processing slot")
+          .tag("workload", workload.getTag())
+          .publishPercentileHistogram()
+          .register(meterRegistry);
+      this.failures = meterRegistry.counter("trans.requests.failures", "workload", workload.getTag());
+    }
+  }
+}
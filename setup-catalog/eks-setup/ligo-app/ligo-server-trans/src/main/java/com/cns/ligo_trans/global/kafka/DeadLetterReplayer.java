@@ -0,0 +1,132 @@
+package com.cns.ligo_trans.global.kafka;
+
+import com.cns.ligo.message.Topics;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+// Sends dead letters back to the topic they came from, e.g. after an LLM outage is over.
+// Records are copied as raw bytes (whatever wire format they were written in) and start again with
+// a full set of retries. Progress is tracked by the offsets of the GROUP_ID consumer group,
+// so each record is replayed once and a later call continues where the previous one stopped.
+@Component
+public class DeadLetterReplayer {
+
+  private static final Logger logger = LoggerFactory.getLogger(DeadLetterReplayer.class);
+
+  private static final String GROUP_ID = "trans-dead-letter-replay";
+  private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+  private static final Duration REPLAY_TIMEOUT = Duration.ofSeconds(30);
+  private static final long SEND_TIMEOUT_SECONDS = 30;
+
+  // original topic -> its dead-letter topic
+  private static final Map<String, String> DEAD_LETTER_TOPICS = Map.of(
+      Topics.TRANSLATE_REQUEST, Topics.deadLetterOf(Topics.TRANSLATE_REQUEST),
+      Topics.CHECK_GRAMMAR, Topics.deadLetterOf(Topics.CHECK_GRAMMAR),
+      Topics.ASK_LIGOBOT, Topics.deadLetterOf(Topics.ASK_LIGOBOT));
+
+  private final DefaultKafkaConsumerFactory<String, byte[]> consumerFactory;
+  private final KafkaTemplate<String, Object> deadLetterKafkaTemplate;
+  private final MeterRegistry meterRegistry;
+
+  public DeadLetterReplayer(KafkaTemplate<String, Object> deadLetterKafkaTemplate, MeterRegistry meterRegistry,
+      @Value("${spring.kafka.consumer.bootstrap-servers}") String bootstrapAddress) {
+    Map<String, Object> configProps = new HashMap<>();
+    configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapAddress);
+    configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+    configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+    this.consumerFactory = new DefaultKafkaConsumerFactory<>(configProps, new StringDeserializer(),
+        new ByteArrayDeserializer());
+    this.deadLetterKafkaTemplate = deadLetterKafkaTemplate;
+    this.meterRegistry = meterRegistry;
+  }
+
+  public boolean isReplayable(String topic) {
+    return DEAD_LETTER_TOPICS.containsKey(topic);
+  }
+
+  // Replays up to `limit` dead letters of the topic and returns how many were sent.
+  // Offsets are committed only once every copy has been acknowledged by the broker.
+  public int replay(String topic, int limit) {
+    String deadLetterTopic = DEAD_LETTER_TOPICS.get(topic);
+    if (deadLetterTopic == null) {
+      throw new IllegalArgumentException("No dead-letter topic for " + topic);
+    }
+
+    try (Consumer<String, byte[]> consumer = consumerFactory.createConsumer(GROUP_ID, null)) {
+      List<PartitionInfo> partitionInfos = consumer.partitionsFor(deadLetterTopic);
+      if (partitionInfos == null || partitionInfos.isEmpty()) {
+        return 0;
+      }
+      List<TopicPartition> partitions = partitionInfos.stream()
+          .map(info -> new TopicPartition(deadLetterTopic, info.partition()))
+          .toList();
+      consumer.assign(partitions);
+      // what is dead-lettered while we replay waits for the next call
+      Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+
+      List<CompletableFuture<?>> sends = new ArrayList<>();
+      Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+      long deadline = System.nanoTime() + REPLAY_TIMEOUT.toNanos();
+      // an empty poll only means the fetch isn't back yet, so poll until every partition is read up to its end
+      while (sends.size() < limit && !caughtUp(consumer, endOffsets)) {
+        if (System.nanoTime() - deadline > 0) {
+          logger.warn("Stopped reading {} after {}, replaying what was read so far", deadLetterTopic,
+              REPLAY_TIMEOUT);
+          break;
+        }
+        for (ConsumerRecord<String, byte[]> record : consumer.poll(POLL_TIMEOUT)) {
+          TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+          if (sends.size() >= limit || record.offset() >= endOffsets.get(partition)) {
+            continue;
+          }
+          if (record.value() != null) {
+            sends.add(deadLetterKafkaTemplate.send(topic, record.key(), record.value()));
+          }
+          offsets.put(partition, new OffsetAndMetadata(record.offset() + 1));
+        }
+      }
+      if (offsets.isEmpty()) {
+        return 0;
+      }
+
+      CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      consumer.commitSync(offsets);
+      meterRegistry.counter("trans.kafka.dead_letters.replayed", "topic", topic).increment(sends.size());
+      logger.info("Replayed {} dead letters from {} to {}", sends.size(), deadLetterTopic, topic);
+      return sends.size();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while replaying " + deadLetterTopic, e);
+    } catch (ExecutionException | TimeoutException e) {
+      // nothing committed: the same records are replayed again next time
+      throw new IllegalStateException("Failed to replay " + deadLetterTopic, e);
+    }
+  }
+
+  private static boolean caughtUp(Consumer<String, byte[]> consumer, Map<TopicPartition, Long> endOffsets) {
+    return endOffsets.entrySet().stream()
+        .allMatch(end -> consumer.position(end.getKey()) >= end.getValue());
+  }
+}
@@ -1,7 +1,8 @@
 package com.cns.ligo_trans.global.kafka;
 
-
-import com.cns.ligo_trans.domain.message.model.Message;
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.kafka.MessageDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
@@ -12,7 +13,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 
 @Configuration
 public class KafkaConsumerConfig {
@@ -20,21 +22,39 @@ public class KafkaConsumerConfig {
   @Value("${spring.kafka.consumer.bootstrap-servers}")
   private String bootstrapAddress;
 
+  // consumer threads per listener; requests are keyed by room (or session), so any value up to
+  // the partition count keeps each room in order
+  @Value("${spring.trans.kafka.listener.concurrency:1}")
+  private int listenerConcurrency;
+
+  private final ObjectMapper objectMapper;
+
+  public KafkaConsumerConfig(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  // Every listener receives a typed Message parsed by the shared ObjectMapper.
+  // A record that can't be parsed is handed to the container error handler (logged and skipped)
+  // instead of failing the poll forever.
   @Bean
   public ConsumerFactory<String, Message> consumerFactory() {
     Map<String, Object> configProps = new HashMap<>();
     configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapAddress);
     configProps.put(ConsumerConfig.GROUP_ID_CONFIG, "chat-group");
-    configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-    configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
     return new DefaultKafkaConsumerFactory<>(configProps, new StringDeserializer(),
-        new JsonDeserializer<>(Message.class));
+        new ErrorHandlingDeserializer<>(new MessageDeserializer(objectMapper)));
   }
 
   @Bean
   public ConcurrentKafkaListenerContainerFactory<String, Message> kafkaListenerContainerFactory() {
     ConcurrentKafkaListenerContainerFactory<String, Message> factory = new ConcurrentKafkaListenerContainerFactory<>();
     factory.setConsumerFactory(consumerFactory());
+    factory.setConcurrency(listenerConcurrency);
+    // listeners return the future of their AsyncRecordProcessor task and the container acks each
+    // record when it completes; records complete out of order, so async acks make the container
+    // commit only the offsets below the oldest record that is still in flight
+    factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+    factory.getContainerProperties().setAsyncAcks(true);
     return factory;
   }
 }
@@ -1,8 +1,15 @@
 package com.cns.ligo_trans.global.kafka;
 
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.kafka.JsonMessageSenderBroker;
+import com.cns.ligo.message.kafka.MessageSerializer;
+import com.cns.ligo.message.kafka.ProducerProfile;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -10,7 +17,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
 
 @Configuration
 public class KafkaProducerConfig {
@@ -18,20 +25,58 @@ public class KafkaProducerConfig {
   @Value("${spring.kafka.producer.bootstrap-servers}")
   private String bootstrapAddress;
 
+  @Value("${spring.trans.kafka.producer.profile:balanced}")
+  private String producerProfile;
+
+  @Value("${spring.trans.kafka.producer.wire-format:json}")
+  private String wireFormat;
+
+  private final ObjectMapper objectMapper;
+
+  public KafkaProducerConfig(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  // Messages are written once, as plain JSON with the shared ObjectMapper or in the binary
+  // MessageCodec format. No type headers: consumers (MessageDeserializer) always read a Message.
+  // Batching / compression / idempotence come from the selected ProducerProfile.
   @Bean
-  public ProducerFactory<String, String> producerFactory() {
-    Map<String, Object> configProps = new HashMap<>();
+  public ProducerFactory<String, Message> producerFactory() {
+    return new DefaultKafkaProducerFactory<>(producerProps(), new StringSerializer(), messageSerializer());
+  }
+
+  @Bean
+  public KafkaTemplate<String, Message> kafkaTemplate() {
+    return new KafkaTemplate<>(producerFactory());
+  }
+
+  @Bean
+  public JsonMessageSenderBroker jsonMessageSenderBroker(KafkaTemplate<String, Message> kafkaTemplate) {
+    return new JsonMessageSenderBroker(kafkaTemplate);
+  }
+
+  // Forwards failed requests to the retry / dead-letter topics and replays dead letters.
+  // Besides Message it writes raw byte[] values: records that could not be deserialized are
+  // forwarded unchanged, and replayed records are copied without decoding them.
+  @Bean
+  public KafkaTemplate<String, Object> deadLetterKafkaTemplate() {
+    Map<Class<?>, Serializer<?>> valueSerializers = Map.of(
+        Message.class, messageSerializer(),
+        byte[].class, new ByteArraySerializer());
+    return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerProps(), new StringSerializer(),
+        new DelegatingByTypeSerializer(valueSerializers)));
+  }
+
+  private Map<String, Object> producerProps() {
+    Map<String, Object> configProps = new HashMap<>(ProducerProfile.of(producerProfile).getProperties());
     configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapAddress);
-    configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-    configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
 //    configProps.put(ProducerConfig.RETRIES_CONFIG, 10);
 //    configProps.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, 5000);
 //    configProps.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, 10000);
-    return new DefaultKafkaProducerFactory<>(configProps);
+    return configProps;
   }
 
-  @Bean
-  public KafkaTemplate<String, String> kafkaTemplate() {
-    return new KafkaTemplate<>(producerFactory());
+  private MessageSerializer messageSerializer() {
+    return new MessageSerializer(objectMapper, MessageSerializer.WireFormat.of(wireFormat));
   }
 }
@@ -0,0 +1,121 @@
+package com.cns.ligo_trans.global.kafka;
+
+import com.cns.ligo.message.Topics;
+import com.cns.ligo_trans.domain.message.service.TranslationException;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.function.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.retrytopic.DeadLetterPublishingRecovererFactory;
+import org.springframework.kafka.retrytopic.DltStrategy;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationSupport;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+// Non-blocking retries for the request listeners.
+// A failed record is published to the next retry topic (translate-request-retry-0, -retry-1, ...)
+// and its offset is committed, so the records behind it keep flowing. Each retry topic has its own
+// consumer that pauses its partition until the record's backoff has elapsed. After the last attempt
+// the record goes to the dead-letter topic (translate-request-dlt), where
+// MessageController.handleDeadLetter answers the user and DeadLetterReplayer can send it back.
+// Only retryable TranslationExceptions (overload, timeouts, 5xx) are retried; anything else, including
+// records that can't be deserialized, goes straight to the dead-letter topic.
+// Retry budget: every delivery is one UpstreamGuard call with up to spring.trans.limits.retry.max-attempts
+// LLM calls (the HTTP client doesn't retry on its own), so a request costs at most 3 x 4 = 12 LLM calls.
+@Configuration
+public class KafkaRetryConfig extends RetryTopicConfigurationSupport {
+
+  private final MeterRegistry meterRegistry;
+  private final KafkaTemplate<String, Object> deadLetterKafkaTemplate;
+  private final int attempts;
+  private final Duration initialDelay;
+  private final double multiplier;
+  private final Duration maxDelay;
+
+  public KafkaRetryConfig(MeterRegistry meterRegistry, KafkaTemplate<String, Object> deadLetterKafkaTemplate,
+      @Value("${spring.trans.kafka.retry.attempts:4}") int attempts,
+      @Value("${spring.trans.kafka.retry.initial-delay:1s}") Duration initialDelay,
+      @Value("${spring.trans.kafka.retry.multiplier:2.0}") double multiplier,
+      @Value("${spring.trans.kafka.retry.max-delay:30s}") Duration maxDelay) {
+    this.meterRegistry = meterRegistry;
+    this.deadLetterKafkaTemplate = deadLetterKafkaTemplate;
+    this.attempts = attempts;
+    this.initialDelay = initialDelay;
+    this.multiplier = multiplier;
+    this.maxDelay = maxDelay;
+  }
+
+  // One configuration per topic: a dltHandlerMethod shared by several topics is only resolved for
+  // the first one, the other dead-letter consumers never call handleDeadLetter and stall on the unacked record.
+  @Bean
+  public RetryTopicConfiguration translateRequestRetryTopics() {
+    return retryTopics(Topics.TRANSLATE_REQUEST);
+  }
+
+  @Bean
+  public RetryTopicConfiguration checkGrammarRetryTopics() {
+    return retryTopics(Topics.CHECK_GRAMMAR);
+  }
+
+  @Bean
+  public RetryTopicConfiguration askLigoBotRetryTopics() {
+    return retryTopics(Topics.ASK_LIGOBOT);
+  }
+
+  private RetryTopicConfiguration retryTopics(String topic) {
+    return RetryTopicConfigurationBuilder.newInstance()
+        .includeTopic(topic)
+        // deliveries, the first one included
+        .maxAttempts(attempts)
+        .retryOn(TranslationException.class)
+        // the listener's future fails with the TranslationException as its cause
+        .traversingCauses()
+        .exponentialBackoff(initialDelay.toMillis(), multiplier, maxDelay.toMillis())
+        // retry-0, retry-1, ... rather than the delay, so topic names don't change with the backoff settings
+        .suffixTopicsWithIndexValues()
+        .retryTopicSuffix(Topics.RETRY_SUFFIX)
+        .dltSuffix(Topics.DEAD_LETTER_SUFFIX)
+        .dltHandlerMethod("messageController", "handleDeadLetter")
+        // a dead letter that fails again is logged and dropped, it never loops back into the DLT
+        .dltProcessingFailureStrategy(DltStrategy.FAIL_ON_ERROR)
+        .create(deadLetterKafkaTemplate);
+  }
+
+  // wakes up the paused retry-topic partitions when their backoff has elapsed
+  @Bean
+  public TaskScheduler retryTopicTaskScheduler() {
+    ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    scheduler.setThreadNamePrefix("trans-retry-");
+    return scheduler;
+  }
+
+  // Counts every record forwarded to a retry topic (trans.kafka.retries) or a dead-letter topic
+  // (trans.kafka.dead_letters), tagged with the destination topic.
+  @Override
+  protected Consumer<DeadLetterPublishingRecovererFactory> configureDeadLetterPublishingContainerFactory() {
+    return factory -> factory.setDeadLetterPublisherCreator((templateResolver, destinationResolver) ->
+        new DeadLetterPublishingRecoverer(templateResolver, destinationResolver) {
+
+          @Override
+          protected void publish(ProducerRecord<Object, Object> outRecord,
+              KafkaOperations<Object, Object> kafkaTemplate, ConsumerRecord<?, ?> inRecord) {
+            countForward(outRecord.topic());
+            super.publish(outRecord, kafkaTemplate, inRecord);
+          }
+        });
+  }
+
+  private void countForward(String topic) {
+    String name = topic.endsWith(Topics.DEAD_LETTER_SUFFIX) ? "trans.kafka.dead_letters" : "trans.kafka.retries";
+    meterRegistry.counter(name, "topic", topic).increment();
+  }
+}
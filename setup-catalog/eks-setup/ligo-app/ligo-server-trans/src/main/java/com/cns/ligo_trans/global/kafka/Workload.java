@@ -0,0 +1,19 @@
+package com.cns.ligo_trans.global.kafka;
+
+// Kinds of requests the service handles, each scheduled on its own queue (see AsyncRecordProcessor).
+// Declared from the most to the least latency-sensitive.
+public enum Workload {
+  TRANSLATE("translate"),
+  CHECK_GRAMMAR("check-grammar"),
+  ASK_LIGOBOT("ask-ligobot");
+
+  private final String tag;
+
+  Workload(String tag) {
+    this.tag = tag;
+  }
+
+  public String getTag() {
+    return tag;
+  }
+}
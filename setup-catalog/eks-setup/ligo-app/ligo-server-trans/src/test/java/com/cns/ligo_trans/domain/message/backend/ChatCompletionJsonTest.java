@@ -0,0 +1,59 @@
+package com.cns.ligo_trans.domain.message.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ChatCompletionJsonTest {
+
+  private final ChatCompletionJson json = new ChatCompletionJson();
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void escapesUserTextInRequests() throws Exception {
+    String prompt = "He said \"hi\"\nand left \\ 안녕";
+
+    JsonNode request = objectMapper.readTree(json.writeRequest("llama", prompt, true));
+
+    assertThat(request.path("model").asText()).isEqualTo("llama");
+    assertThat(request.path("messages").path(0).path("role").asText()).isEqualTo("user");
+    assertThat(request.path("messages").path(0).path("content").asText()).isEqualTo(prompt);
+    assertThat(request.path("stream").asBoolean()).isTrue();
+  }
+
+  @Test
+  void readsMessageContentPastOtherFields() {
+    String response = """
+        {"id":"chatcmpl-1","object":"chat.completion","usage":{"prompt_tokens":12,"completion_tokens":3},
+         "choices":[{"index":0,"logprobs":null,"message":{"role":"assistant","content":"xin \\"chào\\""},
+         "finish_reason":"stop"},{"index":1,"message":{"content":"second"}}]}
+        """;
+
+    assertThat(json.readMessageContent(response.getBytes(StandardCharsets.UTF_8))).isEqualTo("xin \"chào\"");
+  }
+
+  @Test
+  void rejectsResponsesWithoutContent() {
+    byte[] response = "{\"choices\":[]}".getBytes(StandardCharsets.UTF_8);
+
+    assertThatThrownBy(() -> json.readMessageContent(response)).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void readsDeltaContent() {
+    assertThat(json.readDeltaContent("{\"choices\":[{\"delta\":{\"content\":\"Xin \"}}]}")).isEqualTo("Xin ");
+    assertThat(json.readDeltaContent("{\"choices\":[{\"delta\":{},\"finish_reason\":\"stop\"}]}")).isEmpty();
+  }
+
+  @Test
+  void roundTripsStringArrays() {
+    List<String> texts = List.of("one \"quoted\"", "two\nlines");
+
+    assertThat(json.readStringArray(json.writeStringArray(texts))).isEqualTo(texts);
+  }
+}
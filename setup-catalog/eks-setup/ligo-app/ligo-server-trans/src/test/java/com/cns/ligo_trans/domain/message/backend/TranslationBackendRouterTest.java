@@ -0,0 +1,54 @@
+package com.cns.ligo_trans.domain.message.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TranslationBackendRouterTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final TranslationBackendRouter router = new TranslationBackendRouter(
+      List.of(new StubTranslationBackend(Duration.ZERO)), meterRegistry,
+      "stub", "large-model", "stub", "small-model", "stub", "large-model");
+
+  @Test
+  void routesEachWorkloadToItsModel() {
+    assertThat(router.translate("Vietnamese", "hello")).isEqualTo("[Vietnamese] hello");
+    assertThat(router.translateBatch("Korean", List.of("a", "b"))).containsExactly("[Korean] a", "[Korean] b");
+    assertThat(router.checkGrammar("hello")).isEqualTo("hello");
+
+    assertThat(latencyCount("translate", "large-model")).isEqualTo(2);
+    assertThat(latencyCount("check-grammar", "small-model")).isEqualTo(1);
+  }
+
+  @Test
+  void streamedChunksAddUpToTheAnswer() {
+    List<String> chunks = new ArrayList<>();
+
+    String answer = router.askStreaming("how are you", chunks::add);
+
+    assertThat(chunks).hasSizeGreaterThan(1);
+    assertThat(String.join("", chunks)).isEqualTo(answer);
+    assertThat(latencyCount("ask-ligobot", "large-model")).isEqualTo(1);
+  }
+
+  @Test
+  void rejectsUnknownBackends() {
+    assertThatThrownBy(() -> new TranslationBackendRouter(List.of(new StubTranslationBackend(Duration.ZERO)),
+        meterRegistry, "openai", "gpt", "stub", "m", "stub", "m"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("openai");
+  }
+
+  private long latencyCount(String workload, String model) {
+    return meterRegistry.get("trans.backend.latency")
+        .tags("backend", "stub", "workload", workload, "model", model, "outcome", "success")
+        .timer()
+        .count();
+  }
+}
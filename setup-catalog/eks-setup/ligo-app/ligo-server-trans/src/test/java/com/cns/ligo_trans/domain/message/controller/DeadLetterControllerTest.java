@@ -0,0 +1,23 @@
+package com.cns.ligo_trans.domain.message.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import com.cns.ligo.message.Topics;
+import com.cns.ligo_trans.global.kafka.DeadLetterReplayer;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+class DeadLetterControllerTest {
+
+  private final DeadLetterReplayer deadLetterReplayer = mock(DeadLetterReplayer.class);
+
+  @Test
+  void replayIsOffByDefault() {
+    DeadLetterController controller = new DeadLetterController(deadLetterReplayer, false);
+
+    assertThat(controller.replay(Topics.TRANSLATE_REQUEST, 100).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    verifyNoInteractions(deadLetterReplayer);
+  }
+}
@@ -0,0 +1,39 @@
+package com.cns.ligo_trans.domain.message.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AimdLimiterTest {
+
+  @Test
+  void halvesOnOverloadAndGrowsBackOnSuccess() throws InterruptedException {
+    AimdLimiter limiter = new AimdLimiter(8, 1, 16, 0.5);
+
+    assertThat(limiter.acquire(0, TimeUnit.MILLISECONDS)).isTrue();
+    limiter.onOverload();
+    assertThat(limiter.getLimit()).isEqualTo(4);
+
+    for (int i = 0; i < 4; i++) {
+      assertThat(limiter.acquire(0, TimeUnit.MILLISECONDS)).isTrue();
+      limiter.onSuccess();
+    }
+    assertThat(limiter.getLimit()).isGreaterThan(4.9).isLessThan(5);
+  }
+
+  @Test
+  void lowPriorityCallersOnlyFillTheirShare() throws InterruptedException {
+    AimdLimiter limiter = new AimdLimiter(4, 1, 4, 0.5);
+
+    assertThat(limiter.acquire(0, TimeUnit.MILLISECONDS, 0.5)).isTrue();
+    assertThat(limiter.acquire(0, TimeUnit.MILLISECONDS, 0.5)).isTrue();
+    assertThat(limiter.acquire(0, TimeUnit.MILLISECONDS, 0.5)).isFalse();
+
+    // full-priority callers still get the rest
+    assertThat(limiter.acquire(0, TimeUnit.MILLISECONDS)).isTrue();
+    assertThat(limiter.acquire(0, TimeUnit.MILLISECONDS)).isTrue();
+    assertThat(limiter.acquire(0, TimeUnit.MILLISECONDS)).isFalse();
+    assertThat(limiter.getInFlight()).isEqualTo(4);
+  }
+}
@@ -0,0 +1,86 @@
+package com.cns.ligo_trans.domain.message.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.Test;
+
+class MicroBatcherTest {
+
+  private static final List<String> ITEMS = List.of("one", "two", "three");
+
+  private final AtomicInteger singleCalls = new AtomicInteger();
+
+  @Test
+  void wrongNumberOfResultsFallsBackToSingleCalls() throws Exception {
+    List<Object> results = submitAll((key, items) -> List.of("only one"));
+
+    assertThat(results).containsExactlyInAnyOrder("single one", "single two", "single three");
+    assertThat(singleCalls).hasValue(3);
+  }
+
+  @Test
+  void unreadableBatchFallsBackToSingleCalls() throws Exception {
+    List<Object> results = submitAll((key, items) -> {
+      throw new TranslationException("LLM request failed", new IllegalArgumentException("not a JSON array"), false);
+    });
+
+    assertThat(results).containsExactlyInAnyOrder("single one", "single two", "single three");
+  }
+
+  @Test
+  void retryableFailureIsPassedToEveryCallerWithoutSingleCalls() throws Exception {
+    TranslationException overloaded = new TranslationException("LLM provider is overloaded", null, true);
+
+    List<Object> results = submitAll((key, items) -> {
+      throw overloaded;
+    });
+
+    assertThat(results).containsOnly(overloaded).hasSize(3);
+    assertThat(singleCalls).hasValue(0);
+  }
+
+  @Test
+  void errorsDoNotLeaveCallersWaiting() throws Exception {
+    List<Object> results = submitAll((key, items) -> {
+      throw new AssertionError("boom");
+    });
+
+    assertThat(results).hasSize(3).allMatch(AssertionError.class::isInstance);
+  }
+
+  // submits ITEMS concurrently as one batch; each caller's result, or what it threw
+  private List<Object> submitAll(BiFunction<String, List<String>, List<String>> batchCall) throws Exception {
+    List<Object> results = new ArrayList<>();
+    try (MicroBatcher<String, String, String> batcher = new MicroBatcher<>("test", ITEMS.size(),
+        Duration.ofSeconds(30), batchCall, this::single, new SimpleMeterRegistry());
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<String>> futures = ITEMS.stream()
+          .map(item -> executor.submit(() -> batcher.submit("vi", item)))
+          .toList();
+      for (Future<String> future : futures) {
+        try {
+          results.add(future.get(5, TimeUnit.SECONDS));
+        } catch (ExecutionException e) {
+          results.add(e.getCause());
+        }
+      }
+    }
+    return results;
+  }
+
+  private String single(String key, String item) {
+    singleCalls.incrementAndGet();
+    return "single " + item;
+  }
+}
@@ -0,0 +1,59 @@
+package com.cns.ligo_trans.domain.message.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class RequestCoalescerTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final RequestCoalescer coalescer = new RequestCoalescer(meterRegistry, true);
+
+  @Test
+  void followersReceiveTheLeadersError() throws Exception {
+    CountDownLatch leaderStarted = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      Future<String> leader = executor.submit(() -> coalescer.execute("vi", "hello", () -> {
+        leaderStarted.countDown();
+        await(release);
+        throw new AssertionError("boom");
+      }));
+      assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+      Future<String> follower = executor.submit(() -> coalescer.execute("vi", "hello", () -> "unused"));
+      awaitCoalesced();
+      release.countDown();
+
+      assertThatThrownBy(leader::get).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(AssertionError.class);
+      assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+          .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(AssertionError.class);
+    }
+    // nothing is left in flight: the next call runs on its own
+    assertThat(coalescer.execute("vi", "hello", () -> "xin chao")).isEqualTo("xin chao");
+  }
+
+  private void awaitCoalesced() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (meterRegistry.counter("trans.requests.coalesced", "mode", "vi").count() < 1
+        && System.nanoTime() - deadline < 0) {
+      Thread.sleep(10);
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
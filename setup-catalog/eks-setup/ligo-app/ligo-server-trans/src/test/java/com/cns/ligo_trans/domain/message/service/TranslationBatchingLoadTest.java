@@ -0,0 +1,136 @@
+package com.cns.ligo_trans.domain.message.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.cns.ligo_trans.domain.message.backend.GroqTranslationBackend;
+import com.cns.ligo_trans.domain.message.backend.TranslationBackendRouter;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+// Throughput and upstream cost of single vs batched translations against a stub LLM
+// that takes a fixed time per request. Cost is approximated by requests and prompt characters.
+@Tag("load")
+class TranslationBatchingLoadTest {
+
+  private static final int MESSAGES = 2_000;
+  private static final int CONCURRENCY = 200;
+  private static final Duration STUB_LATENCY = Duration.ofMillis(80);
+  private static final String BATCH_MARKER = "The texts are: ";
+
+  private HttpServer server;
+  private final AtomicInteger requests = new AtomicInteger();
+  private final AtomicLong promptChars = new AtomicLong();
+
+  @BeforeEach
+  void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/openai/v1/chat/completions", exchange -> {
+      requests.incrementAndGet();
+      String prompt = new JSONObject(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8))
+          .getJSONArray("messages").getJSONObject(0).getString("content");
+      promptChars.addAndGet(prompt.length());
+      try {
+        Thread.sleep(STUB_LATENCY);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      byte[] body = completion(prompt).getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    server.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  void batchingReducesUpstreamRequests() throws InterruptedException {
+    Result single = run(false);
+    Result batched = run(true);
+
+    System.out.printf("single : %d requests, %d prompt chars, %.0f msg/s%n",
+        single.requests, single.promptChars, single.throughput);
+    System.out.printf("batched: %d requests, %d prompt chars, %.0f msg/s%n",
+        batched.requests, batched.promptChars, batched.throughput);
+    assertThat(batched.requests).isLessThan(single.requests / 2);
+  }
+
+  private Result run(boolean batching) throws InterruptedException {
+    requests.set(0);
+    promptChars.set(0);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/openai/v1/chat/completions";
+    // JDK client: no per-route connection limit in front of the stub
+    RestClient restClient = RestClient.builder().requestFactory(new JdkClientHttpRequestFactory()).build();
+    String model = "llama-3.3-70b-versatile";
+    TranslationBackendRouter backendRouter = new TranslationBackendRouter(
+        List.of(new GroqTranslationBackend(restClient, url)), meterRegistry, "groq", model, "groq", model, "groq", model);
+    TranslationService translationService = new TranslationService(backendRouter,
+        new TranslationCache(meterRegistry, false, 0, Duration.ofMinutes(1), 0),
+        new RequestCoalescer(meterRegistry, false),
+        new UpstreamGuard(meterRegistry, CONCURRENCY, 1, CONCURRENCY, 1, 1,
+            1_000_000, 1_000_000, 1_000_000, 1_000_000, Duration.ofSeconds(30), 1, Duration.ZERO, Duration.ZERO),
+        meterRegistry, batching, 10, Duration.ofMillis(20));
+
+    AtomicInteger next = new AtomicInteger();
+    List<Thread> workers = new ArrayList<>();
+    long start = System.nanoTime();
+    for (int i = 0; i < CONCURRENCY; i++) {
+      workers.add(Thread.ofVirtual().start(() -> {
+        for (int n = next.getAndIncrement(); n < MESSAGES; n = next.getAndIncrement()) {
+          translationService.translate("vi see you at " + n + " o'clock", "user-" + n);
+        }
+      }));
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    translationService.shutdown();
+    return new Result(requests.get(), promptChars.get(), MESSAGES / seconds);
+  }
+
+  private static String completion(String prompt) {
+    String content = "hẹn gặp lại";
+    int marker = prompt.indexOf(BATCH_MARKER);
+    if (marker >= 0) {
+      JSONArray texts = new JSONArray(prompt.substring(marker + BATCH_MARKER.length()));
+      JSONArray translations = new JSONArray();
+      for (int i = 0; i < texts.length(); i++) {
+        translations.put(content);
+      }
+      content = translations.toString();
+    }
+    return new JSONObject()
+        .put("choices", new JSONArray().put(new JSONObject().put("message", new JSONObject().put("content", content))))
+        .toString();
+  }
+
+  private record Result(int requests, long promptChars, double throughput) {
+  }
+}
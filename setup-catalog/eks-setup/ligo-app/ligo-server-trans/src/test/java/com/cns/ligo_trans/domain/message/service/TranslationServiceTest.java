@@ -0,0 +1,317 @@
+package com.cns.ligo_trans.domain.message.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.cns.ligo_trans.domain.message.backend.GroqTranslationBackend;
+import com.cns.ligo_trans.domain.message.backend.TranslationBackendRouter;
+import com.cns.ligo_trans.global.config.GroqClientConfig;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+// Runs TranslationService against a local stub of the chat-completions endpoint
+class TranslationServiceTest {
+
+  private static final String MODEL = "llama-3.3-70b-versatile";
+  private static final String BATCH_MARKER = "The texts are: ";
+  private static final String STREAM = """
+      data: {"choices":[{"delta":{"role":"assistant"}}]}
+
+      data: {"choices":[{"delta":{"content":"Xin "}}]}
+
+      data: {"choices":[{"delta":{"content":"chào"}}]}
+
+      data: {"choices":[{"delta":{},"finish_reason":"stop"}]}
+
+      data: [DONE]
+
+      """;
+
+  private HttpServer server;
+  private final AtomicInteger requests = new AtomicInteger();
+  private final AtomicInteger batchRequests = new AtomicInteger();
+  private volatile int status = 200;
+  private final AtomicInteger throttledResponses = new AtomicInteger();
+  private volatile boolean malformedBatches;
+  private volatile CountDownLatch responseGate = new CountDownLatch(0);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private TranslationCache translationCache;
+  private TranslationService translationService;
+  private CloseableHttpClient httpClient;
+  private RestClient restClient;
+
+  @BeforeEach
+  void setUp() throws IOException, GeneralSecurityException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/openai/v1/chat/completions", exchange -> {
+      requests.incrementAndGet();
+      JSONObject request = new JSONObject(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+      String prompt = request.getJSONArray("messages").getJSONObject(0).getString("content");
+      try {
+        responseGate.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      boolean stream = request.optBoolean("stream");
+      int code = status;
+      if (throttledResponses.getAndDecrement() > 0) {
+        code = 429;
+        exchange.getResponseHeaders().add("Retry-After", "0");
+      }
+      byte[] body = (code != 200 ? "{\"error\":\"unavailable\"}" : stream ? STREAM : completion(prompt))
+          .getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", stream ? "text/event-stream" : "application/json");
+      exchange.sendResponseHeaders(code, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    server.start();
+
+    // the production transport, so retries of the HTTP client itself are covered too
+    GroqClientConfig groqClientConfig = new GroqClientConfig();
+    httpClient = groqClientConfig.groqHttpClient(groqClientConfig.groqConnectionManager(meterRegistry, 50,
+        Duration.ofSeconds(5), Duration.ofSeconds(60), Duration.ofMinutes(5), false),
+        Duration.ofSeconds(5), Duration.ofSeconds(60));
+    restClient = groqClientConfig.groqRestClient(RestClient.builder(), httpClient, "test-key");
+
+    translationCache = new TranslationCache(meterRegistry, true, 100, Duration.ofMinutes(5), 200);
+    translationService = newTranslationService(false);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    translationService.shutdown();
+    httpClient.close();
+    server.stop(0);
+  }
+
+  @Test
+  void repeatedPhrasesAreServedFromCache() {
+    assertThat(translationService.translate("vi hello", "alice")).isEqualTo("xin chào");
+    assertThat(translationService.translate("vi   hello ", "alice")).isEqualTo("xin chào");
+
+    assertThat(requests.get()).isEqualTo(1);
+  }
+
+  @Test
+  void cacheIsKeyedByMode() {
+    translationService.translate("vi hello", "alice");
+    translationService.translate("ko hello", "alice");
+    translationService.translate("check_grammar:hello", "alice");
+
+    assertThat(requests.get()).isEqualTo(3);
+    assertThat(translationCache.size()).isEqualTo(3);
+  }
+
+  @Test
+  void askLigoBotIsNotCached() {
+    translationService.translate("ask_ligobot:hello", "alice");
+    translationService.translate("ask_ligobot:hello", "alice");
+
+    assertThat(requests.get()).isEqualTo(2);
+    assertThat(translationCache.size()).isZero();
+  }
+
+  @Test
+  void failuresAreNotCached() {
+    status = 500;
+    assertThatThrownBy(() -> translationService.translate("vi hello", "alice"))
+        .isInstanceOf(TranslationException.class);
+
+    status = 200;
+    assertThat(translationService.translate("vi hello", "alice")).isEqualTo("xin chào");
+    assertThat(requests.get()).isEqualTo(2);
+  }
+
+  @Test
+  void throttledRequestsAreRetried() {
+    throttledResponses.set(2);
+
+    assertThat(translationService.translate("vi hello", "alice")).isEqualTo("xin chào");
+    assertThat(requests.get()).isEqualTo(3);
+    assertThat(meterRegistry.counter("trans.upstream.retries", "mode", "vi").count()).isEqualTo(2);
+  }
+
+  @Test
+  void givesUpWhenTheProviderStaysOverloaded() {
+    status = 503;
+
+    assertThatThrownBy(() -> translationService.translate("vi hello", "alice"))
+        .isInstanceOfSatisfying(TranslationException.class, e -> assertThat(e.isRetryable()).isTrue());
+    assertThat(requests.get()).isEqualTo(3);
+  }
+
+  @Test
+  void clientErrorsAreNotRetryable() {
+    status = 400;
+
+    assertThatThrownBy(() -> translationService.translate("vi hello", "alice"))
+        .isInstanceOfSatisfying(TranslationException.class, e -> assertThat(e.isRetryable()).isFalse());
+    assertThat(requests.get()).isEqualTo(1);
+  }
+
+  @Test
+  void senderRateLimitRejectsFloods() {
+    translationService = newTranslationService(false, newUpstreamGuard(1, 2, Duration.ZERO));
+
+    translationService.translate("vi one", "alice");
+    translationService.translate("vi two", "alice");
+    assertThatThrownBy(() -> translationService.translate("vi three", "alice"))
+        .isInstanceOfSatisfying(TranslationException.class, e -> assertThat(e.isRetryable()).isFalse());
+    // other users are not affected, cache hits are free
+    assertThat(translationService.translate("vi three", "bob")).isEqualTo("xin chào");
+    assertThat(translationService.translate("vi one", "alice")).isEqualTo("xin chào");
+  }
+
+  @Test
+  void concurrentIdenticalRequestsShareOneCall() throws Exception {
+    responseGate = new CountDownLatch(1);
+    List<Thread> callers = new ArrayList<>();
+    List<String> answers = new CopyOnWriteArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      callers.add(Thread.ofVirtual()
+          .start(() -> answers.add(translationService.translate("ask_ligobot:hello", "alice"))));
+    }
+
+    // release the stub once the other four callers joined the outstanding call
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (coalesced() < 4 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    responseGate.countDown();
+    for (Thread caller : callers) {
+      caller.join(5000);
+    }
+
+    assertThat(requests.get()).isEqualTo(1);
+    assertThat(coalesced()).isEqualTo(4);
+    assertThat(answers).hasSize(5).containsOnly("xin chào");
+  }
+
+  @Test
+  void longTextsAreNotCached() {
+    String text = "vi " + "a".repeat(300);
+    translationService.translate(text, "alice");
+    translationService.translate(text, "alice");
+
+    assertThat(requests.get()).isEqualTo(2);
+  }
+
+  @Test
+  void batchesConcurrentTranslationsToTheSameLanguage() throws Exception {
+    translationService = newTranslationService(true);
+
+    List<String> answers = translateConcurrently("vi one", "vi two", "vi three");
+
+    assertThat(answers).hasSize(3).containsOnly("xin chào");
+    assertThat(requests.get()).isEqualTo(1);
+    assertThat(batchRequests.get()).isEqualTo(1);
+  }
+
+  @Test
+  void fallsBackToSingleRequestsWhenTheBatchCannotBeParsed() throws Exception {
+    translationService = newTranslationService(true);
+    malformedBatches = true;
+
+    List<String> answers = translateConcurrently("vi one", "vi two", "vi three");
+
+    assertThat(answers).hasSize(3).containsOnly("xin chào");
+    assertThat(batchRequests.get()).isEqualTo(1);
+    assertThat(requests.get()).isEqualTo(4);
+  }
+
+  @Test
+  void streamsAskLigoBotAnswer() {
+    List<String> chunks = new ArrayList<>();
+
+    String answer = translationService.askLigoBotStreaming("hello", "alice", chunks::add);
+
+    assertThat(chunks).containsExactly("Xin ", "chào");
+    assertThat(answer).isEqualTo("Xin chào");
+  }
+
+  @Test
+  void streamingFailureIsThrown() {
+    status = 500;
+
+    assertThatThrownBy(() -> translationService.askLigoBotStreaming("hello", "alice", chunk -> { }))
+        .isInstanceOf(TranslationException.class);
+  }
+
+  private TranslationService newTranslationService(boolean batching) {
+    return newTranslationService(batching, newUpstreamGuard(1000, 1000, Duration.ofSeconds(5)));
+  }
+
+  private TranslationService newTranslationService(boolean batching, UpstreamGuard upstreamGuard) {
+    String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/openai/v1/chat/completions";
+    TranslationBackendRouter backendRouter = new TranslationBackendRouter(
+        List.of(new GroqTranslationBackend(restClient, url)), meterRegistry,
+        "groq", MODEL, "groq", MODEL, "groq", MODEL);
+    return new TranslationService(backendRouter, translationCache, new RequestCoalescer(meterRegistry, true),
+        upstreamGuard, meterRegistry, batching, 3, Duration.ofSeconds(1));
+  }
+
+  private UpstreamGuard newUpstreamGuard(double senderRate, int senderBurst, Duration maxWait) {
+    return new UpstreamGuard(meterRegistry, 8, 1, 64, 0.75, 0.5, 1000, 1000, senderRate, senderBurst, maxWait,
+        3, Duration.ofMillis(5), Duration.ofMillis(50));
+  }
+
+  private List<String> translateConcurrently(String... texts) throws InterruptedException {
+    List<String> answers = new CopyOnWriteArrayList<>();
+    List<Thread> callers = new ArrayList<>();
+    for (String text : texts) {
+      callers.add(Thread.ofVirtual().start(() -> answers.add(translationService.translate(text, "alice"))));
+    }
+    for (Thread caller : callers) {
+      caller.join(5000);
+    }
+    return answers;
+  }
+
+  // single prompts get "xin chào", batch prompts an array with one "xin chào" per text
+  private String completion(String prompt) {
+    String content = "xin chào";
+    int marker = prompt.indexOf(BATCH_MARKER);
+    if (marker >= 0) {
+      batchRequests.incrementAndGet();
+      JSONArray texts = new JSONArray(prompt.substring(marker + BATCH_MARKER.length()));
+      JSONArray translations = new JSONArray();
+      for (int i = 0; i < texts.length(); i++) {
+        translations.put("xin chào");
+      }
+      content = malformedBatches ? "Sure! Here are the translations." : translations.toString();
+    }
+    return new JSONObject()
+        .put("choices", new JSONArray().put(new JSONObject().put("message", new JSONObject().put("content", content))))
+        .toString();
+  }
+
+  private double coalesced() {
+    return meterRegistry.find("trans.requests.coalesced").counters().stream()
+        .mapToDouble(counter -> counter.count())
+        .sum();
+  }
+}
@@ -0,0 +1,35 @@
+package com.cns.ligo_trans.domain.message.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class UpstreamGuardTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  // a single call slot, so a leaked permit blocks every later call
+  private final UpstreamGuard guard = new UpstreamGuard(meterRegistry, 1, 1, 1, 1.0, 1.0, 1000, 1000, 1000, 1000,
+      Duration.ofMillis(100), 1, Duration.ofMillis(10), Duration.ofMillis(10));
+
+  @Test
+  void permitIsReturnedWhenTheCallThrowsAnError() {
+    assertThatThrownBy(() -> guard.call("vi", () -> {
+      throw new AssertionError("boom");
+    })).isInstanceOf(AssertionError.class);
+
+    assertThat(meterRegistry.get("trans.upstream.concurrency.in_flight").gauge().value()).isZero();
+    assertThat(guard.call("vi", () -> "xin chao")).isEqualTo("xin chao");
+  }
+
+  @Test
+  void permitIsReturnedWhenTheCallFails() {
+    assertThatThrownBy(() -> guard.call("vi", () -> {
+      throw new IllegalStateException("unreadable response");
+    })).isInstanceOf(TranslationException.class);
+
+    assertThat(guard.call("vi", () -> "xin chao")).isEqualTo("xin chao");
+  }
+}
@@ -0,0 +1,135 @@
+package com.cns.ligo_trans.global.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class AsyncRecordProcessorTest {
+
+  private final AsyncRecordProcessor processor = new AsyncRecordProcessor(new SimpleMeterRegistry(), 2, 64, 16, 1);
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    processor.shutdown();
+  }
+
+  @Test
+  void limitsInFlightRecordsPerPartition() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger maxRunning = new AtomicInteger();
+    AtomicInteger running = new AtomicInteger();
+    List<Long> acked = new CopyOnWriteArrayList<>();
+
+    Thread listener = Thread.ofPlatform().start(() -> {
+      for (long offset = 0; offset < 4; offset++) {
+        long ackedOffset = offset;
+        processor.submit(Workload.TRANSLATE, record(0, offset), () -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          await(release);
+          running.decrementAndGet();
+        }).thenRun(() -> acked.add(ackedOffset));
+      }
+    });
+
+    // the third record waits for a slot on the listener thread
+    listener.join(200);
+    assertThat(listener.isAlive()).isTrue();
+    assertThat(processor.getInFlight()).isEqualTo(2);
+
+    release.countDown();
+    listener.join(5000);
+    waitUntil(() -> acked.size() == 4);
+    assertThat(maxRunning.get()).isEqualTo(2);
+    assertThat(acked).containsExactlyInAnyOrder(0L, 1L, 2L, 3L);
+  }
+
+  @Test
+  void partitionsDoNotShareSlots() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(4);
+
+    for (int partition = 0; partition < 2; partition++) {
+      for (long offset = 0; offset < 2; offset++) {
+        processor.submit(Workload.TRANSLATE, record(partition, offset), () -> {
+          started.countDown();
+          await(release);
+        });
+      }
+    }
+
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    release.countDown();
+  }
+
+  @Test
+  void workloadsHaveSeparateBudgets() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch translated = new CountDownLatch(1);
+
+    // the ask-ligobot budget is one request: the second one waits on its listener thread
+    Thread askListener = Thread.ofPlatform().start(() -> {
+      for (long offset = 0; offset < 2; offset++) {
+        processor.submit(Workload.ASK_LIGOBOT, record("ask-ligobot", 0, offset), () -> await(release));
+      }
+    });
+    askListener.join(200);
+    assertThat(askListener.isAlive()).isTrue();
+
+    // translations still run right away
+    processor.submit(Workload.TRANSLATE, record(0, 0), translated::countDown);
+    assertThat(translated.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(processor.getInFlight(Workload.ASK_LIGOBOT)).isEqualTo(1);
+
+    release.countDown();
+    askListener.join(5000);
+    assertThat(askListener.isAlive()).isFalse();
+  }
+
+  @Test
+  void failsTheFutureOfFailedRecords() throws Exception {
+    CompletableFuture<Void> result = processor.submit(Workload.TRANSLATE, record(0, 0), () -> {
+      throw new IllegalStateException("boom");
+    });
+
+    assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(IllegalStateException.class);
+    // the slot is free again for the next record of the partition
+    assertThat(processor.getInFlight()).isZero();
+  }
+
+  private static ConsumerRecord<String, String> record(int partition, long offset) {
+    return record("translate-request", partition, offset);
+  }
+
+  private static ConsumerRecord<String, String> record(String topic, int partition, long offset) {
+    return new ConsumerRecord<>(topic, partition, offset, null, "value");
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+  }
+}
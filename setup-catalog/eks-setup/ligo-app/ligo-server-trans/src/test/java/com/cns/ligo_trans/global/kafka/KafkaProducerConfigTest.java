@@ -0,0 +1,82 @@
+package com.cns.ligo_trans.global.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+// Producer settings KafkaProducerConfig builds for each spring.trans.kafka.producer.profile value.
+class KafkaProducerConfigTest {
+
+  private static final String BOOTSTRAP_SERVERS = "kafka:9092";
+
+  private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+      .withBean(ObjectMapper.class)
+      .withUserConfiguration(KafkaProducerConfig.class)
+      .withPropertyValues("spring.kafka.producer.bootstrap-servers=" + BOOTSTRAP_SERVERS);
+
+  @Test
+  void defaultProfileKeepsClientDefaults() {
+    assertThat(producerProps("spring.trans.kafka.producer.profile=default"))
+        .containsOnly(Map.entry(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_SERVERS));
+  }
+
+  @Test
+  void balancedProfileIsUsedWhenNoneIsSet() {
+    assertThat(producerProps()).containsOnly(
+        Map.entry(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_SERVERS),
+        Map.entry(ProducerConfig.LINGER_MS_CONFIG, 5),
+        Map.entry(ProducerConfig.BATCH_SIZE_CONFIG, 64 * 1024),
+        Map.entry(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4"),
+        Map.entry(ProducerConfig.ACKS_CONFIG, "all"),
+        Map.entry(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true),
+        Map.entry(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5),
+        Map.entry(ProducerConfig.BUFFER_MEMORY_CONFIG, 32L * 1024 * 1024));
+  }
+
+  @Test
+  void throughputProfile() {
+    assertThat(producerProps("spring.trans.kafka.producer.profile=Throughput")).containsOnly(
+        Map.entry(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_SERVERS),
+        Map.entry(ProducerConfig.LINGER_MS_CONFIG, 20),
+        Map.entry(ProducerConfig.BATCH_SIZE_CONFIG, 256 * 1024),
+        Map.entry(ProducerConfig.COMPRESSION_TYPE_CONFIG, "zstd"),
+        Map.entry(ProducerConfig.ACKS_CONFIG, "all"),
+        Map.entry(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true),
+        Map.entry(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5),
+        Map.entry(ProducerConfig.BUFFER_MEMORY_CONFIG, 64L * 1024 * 1024));
+  }
+
+  @Test
+  void deadLetterTemplateUsesTheSameProfile() {
+    contextRunner.withPropertyValues("spring.trans.kafka.producer.profile=throughput").run(context -> {
+      KafkaTemplate<?, ?> deadLetterKafkaTemplate = context.getBean("deadLetterKafkaTemplate", KafkaTemplate.class);
+      ProducerFactory<?, ?> producerFactory = context.getBean(ProducerFactory.class);
+      assertThat(deadLetterKafkaTemplate.getProducerFactory().getConfigurationProperties())
+          .isEqualTo(producerFactory.getConfigurationProperties());
+    });
+  }
+
+  @Test
+  void unknownProfileFailsStartup() {
+    contextRunner.withPropertyValues("spring.trans.kafka.producer.profile=fastest")
+        .run(context -> assertThat(context).hasFailed().getFailure()
+            .hasStackTraceContaining("Unknown Kafka producer profile 'fastest'"));
+  }
+
+  private Map<String, Object> producerProps(String... properties) {
+    AtomicReference<Map<String, Object>> props = new AtomicReference<>();
+    contextRunner.withPropertyValues(properties).run(context -> {
+      assertThat(context).hasNotFailed();
+      ProducerFactory<?, ?> producerFactory = context.getBean(ProducerFactory.class);
+      props.set(producerFactory.getConfigurationProperties());
+    });
+    return props.get();
+  }
+}
@@ -0,0 +1,189 @@
+package com.cns.ligo_trans.global.kafka;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.cns.ligo.message.Message;
+import com.cns.ligo.message.MessageType;
+import com.cns.ligo.message.Topics;
+import com.cns.ligo.message.kafka.JsonMessageSenderBroker;
+import com.cns.ligo.message.kafka.MessageDeserializer;
+import com.cns.ligo_trans.domain.message.service.TranslationException;
+import com.cns.ligo_trans.domain.message.service.TranslationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.StreamSupport;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+// Retry topics, dead-letter topics and the replay endpoint against an embedded broker.
+@SpringBootTest(properties = {
+    "spring.kafka.consumer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "spring.kafka.producer.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "spring.trans.kafka.retry.attempts=3",
+    "spring.trans.kafka.retry.initial-delay=100ms",
+    "spring.trans.kafka.retry.max-delay=1s",
+    "spring.trans.dead-letters.replay.enabled=true"})
+@AutoConfigureMockMvc
+@EmbeddedKafka(partitions = 1, bootstrapServersProperty = "spring.kafka.bootstrap-servers", topics = {
+    Topics.TRANSLATE_REQUEST, Topics.CHECK_GRAMMAR, Topics.ASK_LIGOBOT,
+    Topics.AI_RESPONSE, Topics.CHECK_GRAMMAR_RESPONSE, Topics.ASK_LIGOBOT_RESPONSE})
+class KafkaRetryConfigTest {
+
+  private static final Duration WAIT = Duration.ofSeconds(30);
+
+  @MockitoBean
+  private TranslationService translationService;
+
+  @Autowired
+  private EmbeddedKafkaBroker embeddedKafka;
+
+  @Autowired
+  private KafkaListenerEndpointRegistry listenerRegistry;
+
+  @Autowired
+  private JsonMessageSenderBroker jsonMessageSenderBroker;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  // the listeners start from the latest offset, so nothing may be sent before they are assigned
+  @BeforeEach
+  void waitForListeners() {
+    for (MessageListenerContainer container : listenerRegistry.getAllListenerContainers()) {
+      ContainerTestUtils.waitForAssignment(container, embeddedKafka.getPartitionsPerTopic());
+    }
+  }
+
+  @Test
+  void retryableFailureGoesThroughTheRetryTopicsToTheDeadLetterTopic() {
+    when(translationService.translate(eq("vihello"), anyString()))
+        .thenThrow(new TranslationException("LLM provider is overloaded", null, true));
+
+    try (Consumer<String, Message> consumer = consumer("retryable")) {
+      List<String> topics = List.of(Topics.TRANSLATE_REQUEST + Topics.RETRY_SUFFIX + "-0",
+          Topics.TRANSLATE_REQUEST + Topics.RETRY_SUFFIX + "-1", Topics.deadLetterOf(Topics.TRANSLATE_REQUEST));
+      consumer.subscribe(topics);
+      jsonMessageSenderBroker.sendToRoom(Topics.TRANSLATE_REQUEST, request("hello", "vi"));
+
+      List<ConsumerRecord<String, Message>> received = poll(consumer, 3);
+      assertThat(received).extracting(ConsumerRecord::topic).containsExactlyElementsOf(topics);
+      assertThat(received).extracting(record -> record.value().getContent()).containsOnly("hello");
+    }
+    verify(translationService, timeout(WAIT.toMillis()).times(3)).translate(eq("vihello"), anyString());
+    assertThat(meterRegistry.counter("trans.kafka.dead_letters", "topic",
+        Topics.deadLetterOf(Topics.TRANSLATE_REQUEST)).count()).isEqualTo(1);
+  }
+
+  @Test
+  void nonRetryableFailureGoesStraightToTheDeadLetterTopic() {
+    when(translationService.askLigoBotStreaming(eq("why?"), anyString(), any()))
+        .thenThrow(new IllegalStateException("unexpected response"));
+
+    try (Consumer<String, Message> consumer = consumer("non-retryable")) {
+      consumer.subscribe(List.of(Topics.deadLetterOf(Topics.ASK_LIGOBOT), Topics.ASK_LIGOBOT_RESPONSE));
+      jsonMessageSenderBroker.sendToSession(Topics.ASK_LIGOBOT, request("why?", null));
+
+      List<ConsumerRecord<String, Message>> received = poll(consumer, 2);
+      assertThat(received).extracting(ConsumerRecord::topic)
+          .containsExactly(Topics.deadLetterOf(Topics.ASK_LIGOBOT), Topics.ASK_LIGOBOT_RESPONSE);
+      // handleDeadLetter answers the asker
+      Message reply = received.get(1).value();
+      assertThat(reply.getType()).isEqualTo(MessageType.LIGOBOT_RESULT);
+      assertThat(reply.getContent()).contains("busy");
+    }
+    verify(translationService, times(1)).askLigoBotStreaming(eq("why?"), anyString(), any());
+    assertThat(meterRegistry.find("trans.kafka.retries")
+        .tag("topic", Topics.ASK_LIGOBOT + Topics.RETRY_SUFFIX + "-0").counter()).isNull();
+  }
+
+  @Test
+  void replayEndpointRepublishesTheDeadLetters() throws Exception {
+    when(translationService.translate(anyString(), anyString()))
+        .thenAnswer(invocation -> "checked " + invocation.getArgument(0, String.class));
+
+    try (Consumer<String, Message> consumer = consumer("replay")) {
+      consumer.subscribe(List.of(Topics.CHECK_GRAMMAR_RESPONSE));
+      jsonMessageSenderBroker.sendToSession(Topics.deadLetterOf(Topics.CHECK_GRAMMAR), request("one", null)).join();
+      jsonMessageSenderBroker.sendToSession(Topics.deadLetterOf(Topics.CHECK_GRAMMAR), request("two", null)).join();
+
+      mockMvc.perform(post("/api/dead-letters/{topic}/replay", Topics.CHECK_GRAMMAR))
+          .andExpect(status().isOk())
+          .andExpect(jsonPath("$.replayed").value(2));
+      // already replayed: a second call finds nothing new
+      mockMvc.perform(post("/api/dead-letters/{topic}/replay", Topics.CHECK_GRAMMAR))
+          .andExpect(jsonPath("$.replayed").value(0));
+
+      // the dead-letter handler sends two busy replies, the replayed requests two real answers
+      List<String> replies = poll(consumer, 4).stream().map(record -> record.value().getContent()).toList();
+      assertThat(replies).contains("checked check_grammar:one", "checked check_grammar:two");
+    }
+  }
+
+  @Test
+  void unknownTopicsCannotBeReplayed() throws Exception {
+    mockMvc.perform(post("/api/dead-letters/{topic}/replay", Topics.AI_RESPONSE))
+        .andExpect(status().isBadRequest());
+  }
+
+  private Consumer<String, Message> consumer(String group) {
+    Map<String, Object> props = KafkaTestUtils.consumerProps("kafka-retry-test-" + group, "false", embeddedKafka);
+    return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new MessageDeserializer(objectMapper))
+        .createConsumer();
+  }
+
+  private static List<ConsumerRecord<String, Message>> poll(Consumer<String, Message> consumer, int count) {
+    List<ConsumerRecord<String, Message>> received = new ArrayList<>();
+    long deadline = System.nanoTime() + WAIT.toNanos();
+    while (received.size() < count && System.nanoTime() - deadline < 0) {
+      StreamSupport.stream(consumer.poll(Duration.ofMillis(200)).spliterator(), false).forEach(received::add);
+    }
+    assertThat(received).hasSize(count);
+    return received;
+  }
+
+  private static Message request(String content, String translationMode) {
+    return Message.builder()
+        .type(MessageType.CHAT)
+        .content(content)
+        .sender("alice")
+        .sessionId("session-1")
+        .roomId("default")
+        .translationMode(translationMode)
+        .build();
+  }
+}